@@ -0,0 +1,386 @@
+package src.converters;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import src.models.*;
+import src.network.MessageType;
+import src.network.Request;
+import src.network.Response;
+import src.utils.Argument;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary format for {@link Request} and {@link Response}.
+ * A message is the magic byte, the format version, the message kind and then (field id, tagged value) pairs
+ * closed by {@link #END_OF_FIELDS}. Every value starts with a tag of its type, so a reader skips fields it does not know.
+ * Enum constants are sent by name, so reordering an enum does not change the protocol
+ */
+public class BinaryCodec {
+    public static final byte MAGIC = (byte) 0xB7;
+    public static final byte VERSION = 2;
+    // version 1 closed the fields with 0 and sent enums as ordinals
+    private static final byte ORDINAL_ENUMS_VERSION = 1;
+
+    private static final byte REQUEST = 1;
+    private static final byte RESPONSE = 2;
+
+    // not 0, the legacy framing cuts the zeros at the end of a message
+    static final byte END_OF_FIELDS = (byte) 0xFF;
+
+    private static final byte REQUEST_MESSAGE_TYPE = 1;
+    private static final byte REQUEST_ARGUMENTS = 2;
+    private static final byte REQUEST_PASSWORD = 3;
+    private static final byte REQUEST_USER_NAME = 4;
+    private static final byte REQUEST_CREATE_NEW_USER = 5;
+    private static final byte REQUEST_STRUCTURED_RESULT = 6;
+    private static final byte REQUEST_PAGE_SIZE = 7;
+    private static final byte REQUEST_CURSOR = 8;
+    private static final byte REQUEST_STREAM_RESULT = 9;
+    private static final byte REQUEST_SESSION_TOKEN = 10;
+    private static final byte REQUEST_ID = 11;
+
+    private static final byte RESPONSE_MESSAGE_TYPE = 1;
+    private static final byte RESPONSE_COMMAND_REQUIREMENTS = 2;
+    private static final byte RESPONSE_TEXT = 3;
+    private static final byte RESPONSE_PRODUCTS = 4;
+    private static final byte RESPONSE_USERS = 5;
+    private static final byte RESPONSE_NEXT_CURSOR = 6;
+    private static final byte RESPONSE_HAS_MORE = 7;
+    private static final byte RESPONSE_SESSION_TOKEN = 8;
+    private static final byte RESPONSE_REQUEST_ID = 9;
+
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte FLOAT = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte STRING = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte LIST = 7;
+    private static final byte MAP = 8;
+    private static final byte PAIR = 9;
+    private static final byte MESSAGE_TYPE = 10;
+    private static final byte ARGUMENT = 11;
+    private static final byte ROLE = 12;
+    private static final byte UNIT_OF_MEASURE = 13;
+    private static final byte ORGANIZATION_TYPE = 14;
+    private static final byte PRODUCT = 15;
+    private static final byte COORDINATES = 16;
+    private static final byte ORGANIZATION = 17;
+    private static final byte USER = 18;
+
+    public byte[] encode(Object message) throws IOException {
+        var bos = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bos);
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        if (message instanceof Request request) {
+            out.writeByte(REQUEST);
+            writeField(out, REQUEST_MESSAGE_TYPE, request.messageType);
+            writeField(out, REQUEST_ARGUMENTS, request.requiredArguments);
+            writeField(out, REQUEST_PASSWORD, request.userPassword);
+            writeField(out, REQUEST_USER_NAME, request.userName);
+            writeField(out, REQUEST_CREATE_NEW_USER, request.createNewUser);
+            writeField(out, REQUEST_STRUCTURED_RESULT, request.structuredResult);
+            writeField(out, REQUEST_PAGE_SIZE, request.pageSize);
+            writeField(out, REQUEST_CURSOR, request.cursor);
+            writeField(out, REQUEST_STREAM_RESULT, request.streamResult);
+            writeField(out, REQUEST_SESSION_TOKEN, request.sessionToken);
+            writeField(out, REQUEST_ID, request.requestId);
+        } else if (message instanceof Response response) {
+            out.writeByte(RESPONSE);
+            writeField(out, RESPONSE_MESSAGE_TYPE, response.messageType);
+            writeField(out, RESPONSE_COMMAND_REQUIREMENTS, response.commandRequirements);
+            writeField(out, RESPONSE_TEXT, response.serverResponseToCommand);
+            writeField(out, RESPONSE_PRODUCTS, response.products);
+            writeField(out, RESPONSE_USERS, response.users);
+            writeField(out, RESPONSE_NEXT_CURSOR, response.nextCursor);
+            writeField(out, RESPONSE_HAS_MORE, response.hasMore);
+            writeField(out, RESPONSE_SESSION_TOKEN, response.sessionToken);
+            writeField(out, RESPONSE_REQUEST_ID, response.requestId);
+        } else {
+            throw new NotSerializableException("binary codec does not support " + message.getClass());
+        }
+        out.writeByte(END_OF_FIELDS);
+        out.flush();
+        return bos.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    public Object decode(byte[] data) throws IOException {
+        var in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readByte() != MAGIC)
+            throw new StreamCorruptedException("not a binary codec message");
+        var version = in.readByte();
+        if (version > VERSION)
+            throw new StreamCorruptedException("unsupported binary codec version: " + version);
+        var endOfFields = version == ORDINAL_ENUMS_VERSION ? 0 : END_OF_FIELDS;
+        var kind = in.readByte();
+        if (kind == REQUEST) {
+            var request = new Request(null);
+            for (var field = in.readByte(); field != endOfFields; field = in.readByte()) {
+                var value = readValue(in, version);
+                switch (field) {
+                    case REQUEST_MESSAGE_TYPE -> request.messageType = (MessageType) value;
+                    case REQUEST_ARGUMENTS -> request.requiredArguments = (List<Object>) value;
+                    case REQUEST_PASSWORD -> request.userPassword = (String) value;
+                    case REQUEST_USER_NAME -> request.userName = (String) value;
+                    case REQUEST_CREATE_NEW_USER -> request.createNewUser = (Boolean) value;
+                    case REQUEST_STRUCTURED_RESULT -> request.structuredResult = (Boolean) value;
+                    case REQUEST_PAGE_SIZE -> request.pageSize = (Integer) value;
+                    case REQUEST_CURSOR -> request.cursor = (String) value;
+                    case REQUEST_STREAM_RESULT -> request.streamResult = (Boolean) value;
+                    case REQUEST_SESSION_TOKEN -> request.sessionToken = (String) value;
+                    case REQUEST_ID -> request.requestId = (Integer) value;
+                    default -> { }
+                }
+            }
+            return request;
+        }
+        if (kind == RESPONSE) {
+            var response = new Response();
+            for (var field = in.readByte(); field != endOfFields; field = in.readByte()) {
+                var value = readValue(in, version);
+                switch (field) {
+                    case RESPONSE_MESSAGE_TYPE -> response.messageType = (MessageType) value;
+                    case RESPONSE_COMMAND_REQUIREMENTS ->
+                            response.commandRequirements = (LinkedHashMap<String, List<Pair<Argument, Integer>>>) value;
+                    case RESPONSE_TEXT -> response.serverResponseToCommand = (String) value;
+                    case RESPONSE_PRODUCTS -> response.products = (List<Product>) value;
+                    case RESPONSE_USERS -> response.users = (List<User>) value;
+                    case RESPONSE_NEXT_CURSOR -> response.nextCursor = (String) value;
+                    case RESPONSE_HAS_MORE -> response.hasMore = (Boolean) value;
+                    case RESPONSE_SESSION_TOKEN -> response.sessionToken = (String) value;
+                    case RESPONSE_REQUEST_ID -> response.requestId = (Integer) value;
+                    default -> { }
+                }
+            }
+            return response;
+        }
+        throw new StreamCorruptedException("unknown binary codec message kind: " + kind);
+    }
+
+    private void writeField(DataOutputStream out, byte field, Object value) throws IOException {
+        if (value == null)
+            return;
+        out.writeByte(field);
+        writeValue(out, value);
+    }
+
+    private void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Integer i) {
+            out.writeByte(INT);
+            out.writeInt(i);
+        } else if (value instanceof Long l) {
+            out.writeByte(LONG);
+            out.writeLong(l);
+        } else if (value instanceof Float f) {
+            out.writeByte(FLOAT);
+            out.writeFloat(f);
+        } else if (value instanceof Double d) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(d);
+        } else if (value instanceof String s) {
+            out.writeByte(STRING);
+            writeString(out, s);
+        } else if (value instanceof Boolean b) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(b);
+        } else if (value instanceof List<?> list) {
+            out.writeByte(LIST);
+            out.writeInt(list.size());
+            for (var element : list) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            out.writeByte(MAP);
+            out.writeInt(map.size());
+            for (var entry : map.entrySet()) {
+                writeValue(out, entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else if (value instanceof Pair<?, ?> pair) {
+            out.writeByte(PAIR);
+            writeValue(out, pair.getLeft());
+            writeValue(out, pair.getRight());
+        } else if (value instanceof MessageType messageType) {
+            out.writeByte(MESSAGE_TYPE);
+            writeString(out, messageType.name());
+        } else if (value instanceof Argument argument) {
+            out.writeByte(ARGUMENT);
+            writeString(out, argument.name());
+        } else if (value instanceof Role role) {
+            out.writeByte(ROLE);
+            writeString(out, role.name());
+        } else if (value instanceof UnitOfMeasure unitOfMeasure) {
+            out.writeByte(UNIT_OF_MEASURE);
+            writeString(out, unitOfMeasure.name());
+        } else if (value instanceof OrganizationType organizationType) {
+            out.writeByte(ORGANIZATION_TYPE);
+            writeString(out, organizationType.name());
+        } else if (value instanceof Product product) {
+            out.writeByte(PRODUCT);
+            writeProduct(out, product);
+        } else if (value instanceof Coordinates coordinates) {
+            out.writeByte(COORDINATES);
+            out.writeInt(coordinates.getId());
+            writeValue(out, coordinates.getX());
+            out.writeFloat(coordinates.getY());
+        } else if (value instanceof Organization organization) {
+            out.writeByte(ORGANIZATION);
+            writeValue(out, organization.getId());
+            writeValue(out, organization.getName());
+            writeValue(out, organization.getAnnualTurnover());
+            writeValue(out, organization.getOrganizationType());
+        } else if (value instanceof User user) {
+            // the password hash never leaves the server
+            out.writeByte(USER);
+            out.writeInt(user.getId());
+            writeValue(out, user.getName());
+            writeValue(out, user.role);
+        } else {
+            throw new NotSerializableException("binary codec does not support " + value.getClass());
+        }
+    }
+
+    private void writeProduct(DataOutputStream out, Product product) throws IOException {
+        writeValue(out, product.getId());
+        writeValue(out, product.getName());
+        writeValue(out, product.getCoordinates());
+        var creationDate = product.getCreationDate();
+        out.writeBoolean(creationDate != null);
+        if (creationDate != null) {
+            out.writeLong(creationDate.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(creationDate.getNano());
+        }
+        out.writeFloat(product.getPrice());
+        writeValue(out, product.getManufactureCost());
+        writeValue(out, product.getUnitOfMeasure());
+        writeValue(out, product.getManufacturer());
+        writeValue(out, product.getUser());
+    }
+
+    private Object readValue(DataInputStream in, byte version) throws IOException {
+        var tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case INT:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case FLOAT:
+                return in.readFloat();
+            case DOUBLE:
+                return in.readDouble();
+            case STRING:
+                return readString(in);
+            case BOOLEAN:
+                return in.readBoolean();
+            case LIST: {
+                var size = readSize(in);
+                var list = new LinkedList<Object>();
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in, version));
+                }
+                return list;
+            }
+            case MAP: {
+                var size = readSize(in);
+                var map = new LinkedHashMap<Object, Object>();
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(in, version), readValue(in, version));
+                }
+                return map;
+            }
+            case PAIR:
+                return ImmutablePair.of(readValue(in, version), readValue(in, version));
+            case MESSAGE_TYPE:
+                return readEnum(in, version, MessageType.class);
+            case ARGUMENT:
+                return readEnum(in, version, Argument.class);
+            case ROLE:
+                return readEnum(in, version, Role.class);
+            case UNIT_OF_MEASURE:
+                return readEnum(in, version, UnitOfMeasure.class);
+            case ORGANIZATION_TYPE:
+                return readEnum(in, version, OrganizationType.class);
+            case PRODUCT:
+                return readProduct(in, version);
+            case COORDINATES: {
+                var id = in.readInt();
+                var x = (Double) readValue(in, version);
+                var y = in.readFloat();
+                return new Coordinates(id, x, y);
+            }
+            case ORGANIZATION:
+                return new Organization((Long) readValue(in, version), (String) readValue(in, version),
+                        (Integer) readValue(in, version), (OrganizationType) readValue(in, version));
+            case USER: {
+                var user = new User(in.readInt(), null, (String) readValue(in, version));
+                user.role = (Role) readValue(in, version);
+                return user;
+            }
+            default:
+                throw new StreamCorruptedException("unknown binary codec tag: " + tag);
+        }
+    }
+
+    private Product readProduct(DataInputStream in, byte version) throws IOException {
+        var id = (Long) readValue(in, version);
+        var name = (String) readValue(in, version);
+        var coordinates = (Coordinates) readValue(in, version);
+        LocalDateTime creationDate = null;
+        if (in.readBoolean())
+            creationDate = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        var price = in.readFloat();
+        var manufactureCost = (Double) readValue(in, version);
+        var unitOfMeasure = (UnitOfMeasure) readValue(in, version);
+        var manufacturer = (Organization) readValue(in, version);
+        var user = (User) readValue(in, version);
+        var product = new Product(id, name, coordinates, price, manufactureCost, unitOfMeasure, manufacturer);
+        product.setCreationDate(creationDate);
+        product.setUser(user);
+        return product;
+    }
+
+    private <E extends Enum<E>> E readEnum(DataInputStream in, byte version, Class<E> type) throws IOException {
+        if (version == ORDINAL_ENUMS_VERSION)
+            return type.getEnumConstants()[in.readUnsignedByte()];
+        var name = readString(in);
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            throw new StreamCorruptedException("unknown " + type.getSimpleName() + " in binary codec message: " + name);
+        }
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        var bytes = new byte[readSize(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int readSize(DataInputStream in) throws IOException {
+        var size = in.readInt();
+        if (size < 0)
+            throw new StreamCorruptedException("negative size in binary codec message");
+        return size;
+    }
+}
@@ -7,6 +7,8 @@ import java.io.*;
 
 public class SerializationManager {
 
+    private final BinaryCodec binaryCodec = new BinaryCodec();
+
     // no need for synchronization because each object in this method is created with every call
     public byte[]  serialize(Object object) {
         LoggerManager.getLogger(SerializationManager.class).info("starting to convert obj to bytes..");
@@ -22,8 +24,29 @@ public class SerializationManager {
         return new byte[0];
     }
 
+    /** serializes with the given codec, java serialization is used if the binary codec cannot encode the object */
+    public byte[] serialize(Object object, WireCodec codec) {
+        if (codec == WireCodec.BINARY) {
+            try {
+                return binaryCodec.encode(object);
+            } catch (IOException e) {
+                LoggerManager.getLogger(SerializationManager.class).error(e.getMessage());
+            }
+        }
+        return serialize(object);
+    }
+
+    /** reads a message in any of the {@link WireCodec}s, the codec is told by the first byte */
     public Object deserialize(byte[] object) {
         LoggerManager.getLogger(SerializationManager.class).info("starting to convert bytes to obj");
+        if (WireCodec.of(object) == WireCodec.BINARY) {
+            try {
+                return binaryCodec.decode(object);
+            } catch (IOException | RuntimeException e) {
+                LoggerManager.getLogger(SerializationManager.class).error(e.getMessage());
+                return null;
+            }
+        }
         try (ByteArrayInputStream inp = new ByteArrayInputStream(object);
              ObjectInputStream ois = new ObjectInputStream(inp);
         ) {
@@ -0,0 +1,15 @@
+package src.converters;
+
+public enum WireCodec {
+    /** ObjectOutputStream, kept for the clients that do not speak the binary codec */
+    JAVA,
+    /** hand-written format of {@link BinaryCodec} */
+    BINARY;
+
+    /** tells the codec of a message by its first byte */
+    public static WireCodec of(byte[] data) {
+        if (data.length > 0 && data[0] == BinaryCodec.MAGIC)
+            return BINARY;
+        return JAVA;
+    }
+}
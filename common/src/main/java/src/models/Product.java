@@ -70,6 +70,10 @@ public class Product implements Comparable<Product>, Serializable {
         return creationDate;
     }
 
+    public void setCreationDate(LocalDateTime creationDate) {
+        this.creationDate = creationDate;
+    }
+
     public float getPrice() {
         return price;
     }
@@ -1,9 +1,14 @@
 package src.models;
 
+import java.io.Serial;
+import java.io.Serializable;
 
-public class User {
+public class User implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1234567L;
     private final int id;
-    private String password;
+    // the hash is never sent to clients
+    private transient String password;
     private String name;
     public Role role;
 
@@ -0,0 +1,76 @@
+package src.network;
+
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+
+/**
+ * Header of a length-prefixed frame:
+ * magic (4 bytes), version (1 byte), flags (1 byte), request id (4 bytes), payload length (4 bytes)
+ */
+public class FrameHeader {
+    public static final int MAGIC = 0x4C375356;
+    public static final byte VERSION = 1;
+    public static final int SIZE = 14;
+    public static final int MAX_PAYLOAD_SIZE = 64 * 1024 * 1024;
+
+    public static final byte NO_FLAGS = 0;
+
+    private final byte flags;
+    private final int requestId;
+    private final int length;
+
+    public FrameHeader(byte flags, int requestId, int length) {
+        this.flags = flags;
+        this.requestId = requestId;
+        this.length = length;
+    }
+
+    public byte getFlags() {
+        return flags;
+    }
+
+    public boolean hasFlag(byte flag) {
+        return (flags & flag) != 0;
+    }
+
+    public int getRequestId() {
+        return requestId;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.put(flags);
+        buffer.putInt(requestId);
+        buffer.putInt(length);
+    }
+
+    /** reads a header from a buffer holding at least {@link #SIZE} bytes */
+    public static FrameHeader readFrom(ByteBuffer buffer) throws StreamCorruptedException {
+        var magic = buffer.getInt();
+        if (magic != MAGIC)
+            throw new StreamCorruptedException("wrong frame magic: " + Integer.toHexString(magic));
+        var version = buffer.get();
+        if (version != VERSION)
+            throw new StreamCorruptedException("unsupported frame version: " + version);
+        var flags = buffer.get();
+        var requestId = buffer.getInt();
+        var length = buffer.getInt();
+        if (length < 0 || length > MAX_PAYLOAD_SIZE)
+            throw new StreamCorruptedException("wrong frame length: " + length);
+        return new FrameHeader(flags, requestId, length);
+    }
+
+    /** wraps the payload into a single buffer ready to be written in one go */
+    public static ByteBuffer frame(byte[] payload, int requestId, byte flags) {
+        var buffer = ByteBuffer.allocate(SIZE + payload.length);
+        new FrameHeader(flags, requestId, payload.length).writeTo(buffer);
+        buffer.put(payload);
+        buffer.flip();
+        return buffer;
+    }
+}
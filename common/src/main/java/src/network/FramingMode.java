@@ -0,0 +1,8 @@
+package src.network;
+
+public enum FramingMode {
+    /** fixed size chunks with the client port digits and a last chunk flag appended to each of them */
+    LEGACY,
+    /** one {@link FrameHeader} followed by the whole payload */
+    LENGTH_PREFIXED
+}
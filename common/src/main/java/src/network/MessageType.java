@@ -28,7 +28,9 @@ public enum MessageType {
     SHOW_USERS(Commands.SHOW_USERS),
     ASSIGN_ROLE(Commands.ASSIGN_ROLE),
     LOGGED("logged"),
-    LOGGING_FAILED("logging_failed");
+    LOGGING_FAILED("logging_failed"),
+    ADD_MANY(Commands.ADD_MANY),
+    REMOVE_MANY(Commands.REMOVE_MANY);
 
     private String command;
 
@@ -1,5 +1,6 @@
 package src.network;
 
+import src.models.User;
 
 import java.io.Serial;
 import java.io.Serializable;
@@ -12,11 +13,27 @@ public class Request implements Serializable {
     private static final long serialVersionUID = 1234567L;
     public transient SocketChannel interlayerChannel;
     public transient int clientPort;
+    // chosen by the client, echoed back in Response.requestId and in the frame of the response,
+    // so many requests can be sent without waiting and matched with responses that come back out of order.
+    // 0 - the id from the frame header is used
+    public int requestId;
     public MessageType messageType;
     public List<Object> requiredArguments;
     public String userPassword;
     public String userName;
     public boolean createNewUser = false;
+    // the client renders rows of Response.products/users itself instead of getting them as text
+    public boolean structuredResult = false;
+    // 0 - the whole result in one response, otherwise one page of that many rows starting at the cursor
+    public int pageSize = 0;
+    // Response.nextCursor of the previous page, null for the first one
+    public String cursor;
+    // the whole result is sent as a sequence of pages, the last one has Response.hasMore = false
+    public boolean streamResult = false;
+    // token from the response to login, used instead of the password when set
+    public String sessionToken;
+    // user the server has authenticated the request as
+    public transient User authenticatedUser;
     public Request(MessageType messageType){
         this.messageType = messageType;
         requiredArguments = new LinkedList<>();
@@ -1,7 +1,10 @@
 package src.network;
 
 import org.apache.commons.lang3.tuple.Pair;
+import src.models.Product;
+import src.models.User;
 import src.utils.Argument;
+import src.utils.ResultRenderer;
 
 import java.io.Serial;
 import java.io.Serializable;
@@ -15,6 +18,15 @@ public class Response implements Serializable {
     public MessageType messageType;
     public HashMap<String, List<Pair<Argument, Integer>>> commandRequirements;
     public String serverResponseToCommand;
+    public List<Product> products;
+    public List<User> users;
+    // token for Request.cursor to get the next page
+    public String nextCursor;
+    public boolean hasMore;
+    // given out on login, later requests put it into Request.sessionToken
+    public String sessionToken;
+    // Request.requestId of the request this is the response to
+    public int requestId;
 
     public Response(String messageForClient) {
         serverResponseToCommand = messageForClient;
@@ -23,6 +35,15 @@ public class Response implements Serializable {
     public Response() {
     }
 
+    /** text of the result, rows are rendered the same way the server renders them for text clients */
+    public String render() {
+        if (products != null && !products.isEmpty())
+            return ResultRenderer.renderProducts(products);
+        if (users != null && !users.isEmpty())
+            return ResultRenderer.renderUsers(users);
+        return serverResponseToCommand;
+    }
+
     public void setCommandRequirements(HashMap<String, List<Pair<Argument, Integer>>> commandRequirements) {
         this.commandRequirements = commandRequirements;
     }
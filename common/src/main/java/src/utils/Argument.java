@@ -9,5 +9,7 @@ public enum Argument {
     ID,
     NUMBER,
     SCRIPT_FILE,
-    ROLE
+    ROLE,
+    PRODUCT_LIST,
+    ID_LIST
 }
@@ -25,4 +25,6 @@ public interface Commands {
   String LOGIN = "login";
   String SHOW_USERS = "show_users";
   String ASSIGN_ROLE = "assign_role";
+  String ADD_MANY = "add_many";
+  String REMOVE_MANY = "remove_many";
 }
@@ -0,0 +1,28 @@
+package src.utils;
+
+import src.models.Product;
+import src.models.User;
+
+import java.util.Collection;
+
+/**
+ * Text representation of result rows, used by the clients and by the server for the clients asking for text
+ */
+public class ResultRenderer {
+
+    public static String renderProducts(Collection<Product> products) {
+        var sb = new StringBuilder();
+        for (var product : products) {
+            sb.append(product.toString()).append("\n\n");
+        }
+        return sb.toString();
+    }
+
+    public static String renderUsers(Collection<User> users) {
+        var sb = new StringBuilder();
+        for (var user : users) {
+            sb.append(user.toString()).append("\n\n");
+        }
+        return sb.toString();
+    }
+}
@@ -5,6 +5,11 @@ import src.Repositories.DI.ProductRepo;
 import src.Repositories.DI.UserRepo;
 import src.container.SettingsContainer;
 import src.converters.SerializationManager;
+import src.db.ChangeFeed;
+import src.db.ChangeLogEntry;
+import src.db.CollectionState;
+import src.db.ChangeOperation;
+import src.db.IdAllocator;
 import src.db.DI.DbCollectionManager;
 import src.db.ProductCollectionInDbManager;
 import src.db.SeqNames;
@@ -23,17 +28,19 @@ import src.network.Request;
 import src.network.Response;
 import src.network_utils.SendingManager;
 import src.service.Auth.AuthenticationManager;
+import src.service.Auth.SessionManager;
 import src.service.HashingService;
 import src.service.InputService;
+import src.service.StripedLocks;
 import src.utils.Argument;
 import src.utils.Commands;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class CommandManager implements CommandManagerCustom {
 
@@ -48,26 +55,31 @@ public class CommandManager implements CommandManagerCustom {
     private final SendingManager sendingManager;
     private final List<String> commandHistory;
     private final SerializationManager serializationManager;
-    private final ExecutorService executorService;
-    private final Lock lock;
-    private UserRepo userRepo;
+    private final Lock syncLock;
+    private final ReadWriteLock collectionLock;
+    private final StripedLocks productLocks;
+    private final UserRepo userRepo;
 
-    private ProductRepo prodRepo;
+    private final ProductRepo prodRepo;
+    private final ChangeFeed changeFeed;
+    private final Map<String, IdAllocator> idAllocators;
 
     private final HashingService hashingService;
     private final AuthenticationManager authenticationManager;
+    private final SessionManager sessionManager;
 
     /**
      * Constructor for making a src.src.CommandManager
      */
     public CommandManager(SerializationManager serializationManager) {
         this.hashingService = new HashingService();
-        this.lock = new ReentrantLock();
+        this.syncLock = new ReentrantLock();
+        this.collectionLock = new ReentrantReadWriteLock();
+        this.productLocks = new StripedLocks(SettingsContainer.getSettings().productLockStripes);
         this.inputService = new InputService();
         this.serializationManager = serializationManager;
-        this.sendingManager = new SendingManager();
+        this.sendingManager = new SendingManager(serializationManager);
         commandHistory = Collections.synchronizedList(new LinkedList<String>());
-        executorService = Executors.newFixedThreadPool(3);
         commandsMap = new HashMap<>();
         commandsMap.put(Commands.ADD, new AddCommand(this));
         commandsMap.put(Commands.CLEAR, new ClearCommand(this));
@@ -85,14 +97,29 @@ public class CommandManager implements CommandManagerCustom {
         commandsMap.put(Commands.FILTER_BY_MANUFACTURE_COST, new FilterByManufactureCostCommand(this));
         commandsMap.put(Commands.SHOW_USERS, new ShowUsersCommand(this));
         commandsMap.put(Commands.ASSIGN_ROLE, new AssignRoleCommand(this));
+        commandsMap.put(Commands.ADD_MANY, new AddManyCommand(this));
+        commandsMap.put(Commands.REMOVE_MANY, new RemoveManyCommand(this));
 
         CommandsContainer.setCommands(commandsMap.keySet().stream().toList());
-        productDbCollectionManager = new ProductCollectionInDbManager();
-        userDbCollectionManager = new UserCollectionInDbManager();
+        var userDb = new UserCollectionInDbManager();
+        userDbCollectionManager = userDb;
         TableManager.ensureTablesExist();
-        prodRepo = new src.Repositories.ProductRepo(productDbCollectionManager.load());
         userRepo = new src.Repositories.UserRepo(userDbCollectionManager.load());
-        this.authenticationManager = new AuthenticationManager(userRepo.getUsers(), userDbCollectionManager);
+        var productDb = new ProductCollectionInDbManager(userRepo);
+        productDbCollectionManager = productDb;
+        prodRepo = new src.Repositories.ProductRepo(productDbCollectionManager.load());
+        var loadedVersion = productDb.getLoadedVersion();
+        prodRepo.setReversed(loadedVersion.state() == CollectionState.REVERSED);
+        changeFeed = new ChangeFeed(loadedVersion.version());
+        productDb.setChangeFeed(changeFeed);
+        userDb.setChangeFeed(changeFeed);
+        var idBlockSize = SettingsContainer.getSettings().idBlockSize;
+        idAllocators = Map.of(
+                SeqNames.productSeqName, new IdAllocator(productDb, SeqNames.productSeqName, idBlockSize),
+                SeqNames.coordSeqName, new IdAllocator(productDb, SeqNames.coordSeqName, idBlockSize),
+                SeqNames.orgSeqName, new IdAllocator(productDb, SeqNames.orgSeqName, idBlockSize));
+        this.authenticationManager = new AuthenticationManager(userRepo, userDbCollectionManager);
+        this.sessionManager = new SessionManager(SettingsContainer.getSettings().sessionTtlSeconds);
     }
 
     @Override
@@ -120,8 +147,9 @@ public class CommandManager implements CommandManagerCustom {
         return userDbCollectionManager;
     }
 
-    public ExecutorService getExecutorService() {
-        return this.executorService;
+    @Override
+    public IdAllocator getIdAllocator(String sequenceName) {
+        return idAllocators.get(sequenceName);
     }
 
     public void setCurrentScriptBeingExecuted(String name) {
@@ -154,15 +182,17 @@ public class CommandManager implements CommandManagerCustom {
     }
 
     // sync
-    public void executeCommand(String userInput) {
+    public void executeCommand(String userInput, User user) {
         var commandUnits = userInput.trim().toLowerCase().split(" ");
         if (!commandsMap.containsKey(commandUnits[0])) {
             return;
         }
         var enteredCommand = commandUnits[0].trim().toLowerCase();
         var command = commandsMap.get(enteredCommand);
+        if (!command.isAllowedToExecute(user.role))
+            return;
         commandHistory.add(enteredCommand);
-        command.execute(Arrays.copyOfRange(commandUnits, 1, commandUnits.length));
+        command.execute(Arrays.copyOfRange(commandUnits, 1, commandUnits.length), user);
         return;
     }
 
@@ -181,32 +211,44 @@ public class CommandManager implements CommandManagerCustom {
             var response = new Response();
             response.messageType = MessageType.ALL_AVAILABLE_COMMANDS;
             response.commandRequirements = commandPlsArguments;
-            var data = serializationManager.serialize(response);
-            sendingManager.send(data, request.interlayerChannel, request.clientPort);
+            sendingManager.send(response, request);
             return;
         }
 
-        var wasAuthenticated = authenticationManager
-                .authenticate(request.userName, request.userPassword, request.createNewUser);
+        Optional<User> authenticatedUser;
+        var byToken = request.sessionToken != null
+                && request.messageType != MessageType.LOGIN && request.messageType != MessageType.SIGNUP;
+        if (byToken)
+            authenticatedUser = sessionManager.resolve(request.sessionToken).flatMap(userRepo::getUser);
+        else
+            // signup creates the user below
+            authenticatedUser = authenticationManager.authenticate(request.userName, request.userPassword,
+                    request.createNewUser && request.messageType != MessageType.SIGNUP);
+        var wasAuthenticated = authenticatedUser.isPresent();
         var sending = false;
         Response authResponse = null;
         if (request.messageType == MessageType.SIGNUP) {
             var id = userDbCollectionManager.getNextId(SeqNames.userSeq);
             var user = new User(id, hashingService.hash(request.userPassword), request.userName);
             user.role = Role.MIN_USER;
-            userRepo.getUsers().add(user);
-            userDbCollectionManager.insert(user);
-            authResponse = new Response("You are signed up");
+            if (userRepo.addUser(user)) {
+                userDbCollectionManager.insert(user);
+                authResponse = new Response("You are signed up");
+            } else
+                authResponse = new Response("user with that name already exists");
             sending = true;
         } else if (request.messageType == MessageType.LOGIN) {
-            if (wasAuthenticated)
+            if (wasAuthenticated) {
                 authResponse = new Response("you are logged in");
-            else
+                authResponse.sessionToken = sessionManager.createSession(authenticatedUser.get());
+            } else
                 authResponse = new Response("password or user name do not match, try again");
             sending = true;
         } else {
             if (!wasAuthenticated) {
-                authResponse = new Response("the credentials you are trying to log in with " +
+                authResponse = byToken
+                        ? new Response("your session has expired, log in again")
+                        : new Response("the credentials you are trying to log in with " +
                         "are not correct, try again");
                 sending = true;
             }
@@ -216,47 +258,95 @@ public class CommandManager implements CommandManagerCustom {
                 authResponse.messageType = MessageType.LOGGED;
             else
                 authResponse.messageType = MessageType.LOGGING_FAILED;
-            var data = serializationManager.serialize(authResponse);
-            sendingManager.send(data, request.interlayerChannel, request.clientPort);
+            sendingManager.send(authResponse, request);
             return;
         }
 
-        // if it is the last server that accessed the db then do not reload collection
-        // otherwise reload to get new products inserted by other servers
-        lock.lock();
-        try {
-            if (!productDbCollectionManager.isThisLastServerToTouchDB(SettingsContainer.getSettings().localPort)) {
-                productDbCollectionManager.markThatThisServerHasMadeChangesToDb();
-                prodRepo = new src.Repositories.ProductRepo(productDbCollectionManager.load());
-                userRepo = new src.Repositories.UserRepo(userDbCollectionManager.load());
+        // apply the products and users changed by other servers if the collection version has moved,
+        // a request that finds another one syncing goes on without waiting
+        if (syncLock.tryLock()) {
+            try {
+                applyChangesFromOtherServers();
+            } finally {
+                syncLock.unlock();
             }
-        } finally {
-            lock.unlock();
         }
 
         // sync
         if (request.messageType == MessageType.LOAD_COLLECTION) {
             var response = new Response("collection was loaded successfully");
-            var data = serializationManager.serialize(response);
-            sendingManager.send(data, request.interlayerChannel, request.clientPort);
+            sendingManager.send(response, request);
             return;
         }
         // sync
         var commandName = request.messageType;
         var command = commandsMap.get(commandName.getCommandDesc());
-        var foundUser = userRepo.getUser(request);
-        if (foundUser.isEmpty())
-            return;
-        if (command.isAllowedToExecute(foundUser.get().role))
+        request.authenticatedUser = authenticatedUser.get();
+        if (command.isAllowedToExecute(request.authenticatedUser.role))
             commandHistory.add(commandName.getCommandDesc());
         else
         {
             var response = new Response("you have got no rights honey");
-            var data = serializationManager.serialize(response);
-            sendingManager.send(data, request.interlayerChannel, request.clientPort);
+            sendingManager.send(response, request);
+            return;
+        }
+        // reads work on the snapshot of the collection they start with and take no lock,
+        // changes of one product only exclude changes of the same product, other writes run alone.
+        // Keyed writes still queue on the collection version row from the version bump to the commit of their transaction,
+        // only the statements before it and the in-memory work run in parallel
+        if (command.getKind() == CommandKind.READ) {
+            command.execute(request);
+            return;
+        }
+        if (command.getKind() == CommandKind.KEYED_WRITE) {
+            var productLock = productLocks.forKey(command.getLockKey(request));
+            collectionLock.readLock().lock();
+            productLock.lock();
+            try {
+                command.execute(request);
+            } finally {
+                productLock.unlock();
+                collectionLock.readLock().unlock();
+            }
             return;
         }
-        var result = command.execute(request);
+        collectionLock.writeLock().lock();
+        try {
+            command.execute(request);
+        } finally {
+            collectionLock.writeLock().unlock();
+        }
+    }
+
+    private void applyChangesFromOtherServers() {
+        var changes = changeFeed.poll();
+        if (changes.isEmpty())
+            return;
+        collectionLock.writeLock().lock();
+        try {
+            applyChanges(changes);
+        } finally {
+            collectionLock.writeLock().unlock();
+        }
+    }
+
+    private void applyChanges(List<ChangeLogEntry> changes) {
+        for (var change : changes) {
+            switch (change.entity()) {
+                case PRODUCT -> {
+                    // the row is read at its latest state, a later delete in the same poll removes it again
+                    var product = change.operation() == ChangeOperation.DELETE
+                            ? Optional.<Product>empty()
+                            : productDbCollectionManager.load(change.entityId());
+                    if (product.isPresent())
+                        prodRepo.upsert(product.get());
+                    else
+                        prodRepo.removeById(change.entityId());
+                }
+                case USER -> userDbCollectionManager.load(change.entityId()).ifPresent(userRepo::updateUser);
+                case COLLECTION -> prodRepo.setReversed(change.entityId() == CollectionState.REVERSED.code);
+            }
+        }
     }
 
     @Override
@@ -270,6 +360,12 @@ public class CommandManager implements CommandManagerCustom {
         return commandHistory;
     }
 
+    @Override
+    public CommandKind getCommandKind(MessageType messageType) {
+        var command = messageType == null ? null : commandsMap.get(messageType.getCommandDesc());
+        return command == null ? CommandKind.WRITE : command.getKind();
+    }
+
     @Override
     public List<String> getCommandsInfo(Role role) {
         var commandInfos = new ArrayList<String>(commandsMap.size());
@@ -6,7 +6,6 @@ import src.network_utils.ReceivingManager;
 import src.network_utils.TCPServer;
 
 import java.io.*;
-import java.util.concurrent.locks.ReentrantLock;
 
 public class Main {
 
@@ -22,7 +21,7 @@ public class Main {
             SettingsContainer.loadSettings("settings.json");
             var settings = SettingsContainer.getSettings();
             var commandManager = new CommandManager(new SerializationManager());
-            var receivingManager = new ReceivingManager(new ReentrantLock());
+            var receivingManager = new ReceivingManager();
             server = new TCPServer(settings.localPort, receivingManager, commandManager);
             receivingManager.setSessions(server.getSessions());
             server.start();
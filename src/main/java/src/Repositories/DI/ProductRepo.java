@@ -2,9 +2,65 @@ package src.Repositories.DI;
 
 import src.models.Product;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+/**
+ * the product collection, reads go to the latest published snapshot, writes publish a new one
+ */
 public interface ProductRepo {
-    List<Product> getProducts();
+    /** the current version, a command that reads more than once should read from one snapshot */
+    ProductSnapshot snapshot();
 
+    default ProductRows getProducts() {
+        return snapshot().getProducts();
+    }
+
+    default Optional<Product> getById(long id) {
+        return snapshot().getById(id);
+    }
+
+    default Optional<Product> first() {
+        return snapshot().first();
+    }
+
+    default int size() {
+        return snapshot().size();
+    }
+
+    default ProductStats getStats() {
+        return snapshot().getStats();
+    }
+
+    default ProductRows getWithPriceGreaterThan(float price) {
+        return snapshot().getWithPriceGreaterThan(price);
+    }
+
+    default ProductRows getWithManufactureCost(double manufactureCost) {
+        return snapshot().getWithManufactureCost(manufactureCost);
+    }
+
+    default boolean isReversed() {
+        return snapshot().isReversed();
+    }
+
+    /** adds the product after the newest one, that is at the front of a reversed collection */
+    void add(Product product);
+
+    void addAll(List<Product> products);
+
+    /** replaces the product with the same id keeping its position, false if there is no such product */
+    boolean update(Product product);
+
+    /** replaces the product with the same id or adds it as {@link #add} does */
+    void upsert(Product product);
+
+    Optional<Product> removeById(long id);
+
+    /** @return removed products */
+    List<Product> removeAll(Collection<Long> ids);
+
+    /** sets the order direction, no products are moved */
+    void setReversed(boolean reversed);
 }
@@ -0,0 +1,20 @@
+package src.Repositories.DI;
+
+import src.models.Product;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * rows of a snapshot query in the order of the query, read through one of the snapshot indexes
+ */
+public interface ProductRows extends Collection<Product> {
+    /**
+     * rows after the product with the id, found through the index the rows are read from
+     * without going through the rows before it
+     *
+     * @return empty if the product is not in the snapshot
+     */
+    Optional<Iterator<Product>> iteratorAfter(long id);
+}
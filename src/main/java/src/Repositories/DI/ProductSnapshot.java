@@ -0,0 +1,33 @@
+package src.Repositories.DI;
+
+import src.models.Product;
+
+import java.util.Optional;
+
+/**
+ * one immutable version of the product collection, it never changes while it is being read
+ */
+public interface ProductSnapshot {
+    /** number of changes made to the collection before this version */
+    long version();
+
+    /** products in collection order */
+    ProductRows getProducts();
+
+    Optional<Product> getById(long id);
+
+    /** first product in collection order */
+    Optional<Product> first();
+
+    int size();
+
+    ProductStats getStats();
+
+    /** products with a greater price, ordered by price, found through the sorted price index */
+    ProductRows getWithPriceGreaterThan(float price);
+
+    /** products with exactly that manufacture cost, found through the sorted cost index */
+    ProductRows getWithManufactureCost(double manufactureCost);
+
+    boolean isReversed();
+}
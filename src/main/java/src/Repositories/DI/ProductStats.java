@@ -0,0 +1,22 @@
+package src.Repositories.DI;
+
+import src.models.UnitOfMeasure;
+
+import java.util.Map;
+
+/**
+ * statistics of the collection kept up to date on every change, min and max are null for an empty collection
+ */
+public record ProductStats(int count,
+                           Float minPrice, Float maxPrice, double priceSum,
+                           Double minCost, Double maxCost, double costSum,
+                           Map<UnitOfMeasure, Integer> unitCounts) {
+
+    public double averagePrice() {
+        return count == 0 ? 0 : priceSum / count;
+    }
+
+    public double averageCost() {
+        return count == 0 ? 0 : costSum / count;
+    }
+}
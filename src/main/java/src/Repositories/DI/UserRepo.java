@@ -8,9 +8,21 @@ import java.util.Optional;
 
 public interface UserRepo {
 
+    /** snapshot of all users */
     List<User> getUsers();
 
     Optional<User> getUser(Integer id);
 
+    Optional<User> getUserByName(String name);
+
+    /** finds the user by name and checks the password */
     Optional<User> getUser(Request request);
+
+    /** @return false if the name is already taken */
+    boolean addUser(User user);
+
+    void updateUser(User user);
+
+    /** replaces the whole directory, e.g. after other servers have changed the db */
+    void reload(List<User> users);
 }
@@ -0,0 +1,234 @@
+package src.Repositories;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * immutable sorted map (a treap), every change returns a new map that shares all untouched nodes with the old one,
+ * so a change costs O(log n) and old versions stay valid for the readers holding them
+ */
+public final class PersistentSortedMap<K extends Comparable<? super K>, V> {
+
+    private static final class Node<K, V> {
+        private final K key;
+        private final V value;
+        private final int priority;
+        private final Node<K, V> left;
+        private final Node<K, V> right;
+        private final int size;
+
+        private Node(K key, V value, int priority, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + size(left) + size(right);
+        }
+
+        private Node<K, V> withLeft(Node<K, V> left) {
+            return new Node<>(key, value, priority, left, right);
+        }
+
+        private Node<K, V> withRight(Node<K, V> right) {
+            return new Node<>(key, value, priority, left, right);
+        }
+    }
+
+    private static final PersistentSortedMap<?, ?> EMPTY = new PersistentSortedMap<>(null);
+
+    private final Node<K, V> root;
+
+    private PersistentSortedMap(Node<K, V> root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K extends Comparable<? super K>, V> PersistentSortedMap<K, V> empty() {
+        return (PersistentSortedMap<K, V>) EMPTY;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public V get(K key) {
+        var node = root;
+        while (node != null) {
+            var cmp = key.compareTo(node.key);
+            if (cmp == 0)
+                return node.value;
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    public K firstKey() {
+        var node = root;
+        if (node == null)
+            throw new NoSuchElementException();
+        while (node.left != null)
+            node = node.left;
+        return node.key;
+    }
+
+    public K lastKey() {
+        var node = root;
+        if (node == null)
+            throw new NoSuchElementException();
+        while (node.right != null)
+            node = node.right;
+        return node.key;
+    }
+
+    public PersistentSortedMap<K, V> put(K key, V value) {
+        if (get(key) != null)
+            return new PersistentSortedMap<>(replace(root, key, value));
+        return new PersistentSortedMap<>(insert(root, key, value, ThreadLocalRandom.current().nextInt()));
+    }
+
+    public PersistentSortedMap<K, V> remove(K key) {
+        if (get(key) == null)
+            return this;
+        return new PersistentSortedMap<>(remove(root, key));
+    }
+
+    /** values in ascending key order */
+    public Iterable<V> values() {
+        return () -> new ValueIterator<>(root, null, false, null, false, false);
+    }
+
+    /** values in descending key order */
+    public Iterable<V> descendingValues() {
+        return () -> new ValueIterator<>(root, null, false, null, false, true);
+    }
+
+    /** values with keys between the bounds in ascending order, a null bound is open */
+    public Iterable<V> values(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        return () -> new ValueIterator<>(root, from, fromInclusive, to, toInclusive, false);
+    }
+
+    /** values with keys between the bounds in descending order, from is the greater bound, a null bound is open */
+    public Iterable<V> descendingValues(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        return () -> new ValueIterator<>(root, from, fromInclusive, to, toInclusive, true);
+    }
+
+    private static int size(Node<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> replace(Node<K, V> node, K key, V value) {
+        var cmp = key.compareTo(node.key);
+        if (cmp < 0)
+            return node.withLeft(replace(node.left, key, value));
+        if (cmp > 0)
+            return node.withRight(replace(node.right, key, value));
+        return new Node<>(key, value, node.priority, node.left, node.right);
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> insert(Node<K, V> node, K key, V value, int priority) {
+        if (node == null)
+            return new Node<>(key, value, priority, null, null);
+        if (priority > node.priority) {
+            var parts = split(node, key);
+            return new Node<>(key, value, priority, parts.less(), parts.greater());
+        }
+        if (key.compareTo(node.key) < 0)
+            return node.withLeft(insert(node.left, key, value, priority));
+        return node.withRight(insert(node.right, key, value, priority));
+    }
+
+    private record Split<K, V>(Node<K, V> less, Node<K, V> greater) {
+    }
+
+    /** @return nodes with keys less than the key and nodes with greater keys, the key itself is not in the tree */
+    private static <K extends Comparable<? super K>, V> Split<K, V> split(Node<K, V> node, K key) {
+        if (node == null)
+            return new Split<>(null, null);
+        if (key.compareTo(node.key) < 0) {
+            var parts = split(node.left, key);
+            return new Split<>(parts.less(), node.withLeft(parts.greater()));
+        }
+        var parts = split(node.right, key);
+        return new Split<>(node.withRight(parts.less()), parts.greater());
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> remove(Node<K, V> node, K key) {
+        var cmp = key.compareTo(node.key);
+        if (cmp < 0)
+            return node.withLeft(remove(node.left, key));
+        if (cmp > 0)
+            return node.withRight(remove(node.right, key));
+        return merge(node.left, node.right);
+    }
+
+    /** all keys of the left tree are less than the keys of the right one */
+    private static <K, V> Node<K, V> merge(Node<K, V> left, Node<K, V> right) {
+        if (left == null)
+            return right;
+        if (right == null)
+            return left;
+        if (left.priority > right.priority)
+            return left.withRight(merge(left.right, right));
+        return right.withLeft(merge(left, right.left));
+    }
+
+    private static final class ValueIterator<K extends Comparable<? super K>, V> implements Iterator<V> {
+        private final ArrayDeque<Node<K, V>> stack = new ArrayDeque<>();
+        private final K to;
+        private final boolean toInclusive;
+        private final boolean descending;
+
+        private ValueIterator(Node<K, V> root, K from, boolean fromInclusive, K to, boolean toInclusive, boolean descending) {
+            this.to = to;
+            this.toInclusive = toInclusive;
+            this.descending = descending;
+            // push the path to the first key inside the bound the iteration starts from
+            var node = root;
+            while (node != null) {
+                if (from != null) {
+                    var cmp = node.key.compareTo(from);
+                    if (descending)
+                        cmp = -cmp;
+                    if (cmp < 0 || (cmp == 0 && !fromInclusive)) {
+                        node = descending ? node.left : node.right;
+                        continue;
+                    }
+                }
+                stack.push(node);
+                node = descending ? node.right : node.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (stack.isEmpty())
+                return false;
+            if (to == null)
+                return true;
+            var cmp = stack.peek().key.compareTo(to);
+            if (descending)
+                cmp = -cmp;
+            return cmp < 0 || (cmp == 0 && toInclusive);
+        }
+
+        @Override
+        public V next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            var node = stack.pop();
+            var child = descending ? node.left : node.right;
+            while (child != null) {
+                stack.push(child);
+                child = descending ? child.right : child.left;
+            }
+            return node.value;
+        }
+    }
+}
@@ -1,18 +1,358 @@
 package src.Repositories;
 
+import src.Repositories.DI.ProductRows;
+import src.Repositories.DI.ProductSnapshot;
+import src.Repositories.DI.ProductStats;
 import src.models.Product;
+import src.models.UnitOfMeasure;
 
+import java.math.BigDecimal;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.LongFunction;
 
+/**
+ * products indexed by id, by price and by cost, the collection order is kept by order keys.
+ * All indexes are persistent maps, every write publishes a new immutable snapshot sharing most nodes with the old one,
+ * so reads take no locks and see one version of the collection from start to end. Writes are serialized.
+ * Reversing only switches the direction the order is read in
+ */
 public class ProductRepo implements src.Repositories.DI.ProductRepo {
-    private final List<Product> products;
+    // keys of the sorted indexes, the id makes them unique
+    private record PriceKey(float price, long id) implements Comparable<PriceKey> {
+        @Override
+        public int compareTo(PriceKey other) {
+            var byPrice = Float.compare(price, other.price);
+            return byPrice != 0 ? byPrice : Long.compare(id, other.id);
+        }
+    }
+
+    private record CostKey(double cost, long id) implements Comparable<CostKey> {
+        @Override
+        public int compareTo(CostKey other) {
+            var byCost = Double.compare(cost, other.cost);
+            return byCost != 0 ? byCost : Long.compare(id, other.id);
+        }
+    }
+
+    private static final class Snapshot implements ProductSnapshot {
+        private final long version;
+        private final PersistentSortedMap<Long, Product> order;
+        private final PersistentSortedMap<Long, Long> orderKeyById;
+        private final PersistentSortedMap<PriceKey, Product> byPrice;
+        private final PersistentSortedMap<CostKey, Product> byCost;
+        // not changed after the snapshot is published
+        private final EnumMap<UnitOfMeasure, Integer> unitCounts;
+        private final BigDecimal priceSum;
+        private final BigDecimal costSum;
+        private final boolean reversed;
+
+        private Snapshot(Builder builder, long version) {
+            this.version = version;
+            this.order = builder.order;
+            this.orderKeyById = builder.orderKeyById;
+            this.byPrice = builder.byPrice;
+            this.byCost = builder.byCost;
+            this.unitCounts = builder.unitCounts;
+            this.priceSum = builder.priceSum;
+            this.costSum = builder.costSum;
+            this.reversed = builder.reversed;
+        }
+
+        @Override
+        public long version() {
+            return version;
+        }
+
+        @Override
+        public ProductRows getProducts() {
+            return rowsOf(reversed ? order.descendingValues() : order.values(), order.size(), id -> {
+                var key = orderKeyById.get(id);
+                if (key == null)
+                    return null;
+                return reversed ? order.descendingValues(key, false, null, false) : order.values(key, false, null, false);
+            });
+        }
+
+        @Override
+        public Optional<Product> getById(long id) {
+            var key = orderKeyById.get(id);
+            return key == null ? Optional.empty() : Optional.ofNullable(order.get(key));
+        }
+
+        @Override
+        public Optional<Product> first() {
+            if (order.isEmpty())
+                return Optional.empty();
+            return Optional.of(order.get(reversed ? order.lastKey() : order.firstKey()));
+        }
+
+        @Override
+        public int size() {
+            return order.size();
+        }
+
+        @Override
+        public ProductStats getStats() {
+            var empty = byPrice.isEmpty();
+            return new ProductStats(order.size(),
+                    empty ? null : byPrice.firstKey().price(), empty ? null : byPrice.lastKey().price(), priceSum.doubleValue(),
+                    empty ? null : byCost.firstKey().cost(), empty ? null : byCost.lastKey().cost(), costSum.doubleValue(),
+                    Collections.unmodifiableMap(unitCounts));
+        }
+
+        @Override
+        public ProductRows getWithPriceGreaterThan(float price) {
+            var from = new PriceKey(price, Long.MAX_VALUE);
+            return rowsOf(byPrice.values(from, false, null, false), -1, id -> getById(id).map(product -> {
+                // the product may not match the filter any more, the rows after it then start at the bound
+                var key = new PriceKey(product.getPrice(), id);
+                return byPrice.values(key.compareTo(from) > 0 ? key : from, false, null, false);
+            }).orElse(null));
+        }
+
+        @Override
+        public ProductRows getWithManufactureCost(double manufactureCost) {
+            var from = new CostKey(manufactureCost, Long.MIN_VALUE);
+            var to = new CostKey(manufactureCost, Long.MAX_VALUE);
+            return rowsOf(byCost.values(from, true, to, true), -1, id -> getById(id).map(product -> {
+                var key = new CostKey(product.getManufactureCost(), id);
+                return key.compareTo(from) < 0 ? byCost.values(from, true, to, true) : byCost.values(key, false, to, true);
+            }).orElse(null));
+        }
+
+        @Override
+        public boolean isReversed() {
+            return reversed;
+        }
+    }
+
+    /**
+     * the next version being built by a writer
+     */
+    private static final class Builder {
+        private PersistentSortedMap<Long, Product> order;
+        private PersistentSortedMap<Long, Long> orderKeyById;
+        private PersistentSortedMap<PriceKey, Product> byPrice;
+        private PersistentSortedMap<CostKey, Product> byCost;
+        private final EnumMap<UnitOfMeasure, Integer> unitCounts;
+        // exact, so the sums don't drift however many changes there are
+        private BigDecimal priceSum = BigDecimal.ZERO;
+        private BigDecimal costSum = BigDecimal.ZERO;
+        private boolean reversed;
+
+        private Builder(Snapshot from) {
+            if (from == null) {
+                order = PersistentSortedMap.empty();
+                orderKeyById = PersistentSortedMap.empty();
+                byPrice = PersistentSortedMap.empty();
+                byCost = PersistentSortedMap.empty();
+                unitCounts = new EnumMap<>(UnitOfMeasure.class);
+                return;
+            }
+            order = from.order;
+            orderKeyById = from.orderKeyById;
+            byPrice = from.byPrice;
+            byCost = from.byCost;
+            unitCounts = new EnumMap<>(from.unitCounts);
+            priceSum = from.priceSum;
+            costSum = from.costSum;
+            reversed = from.reversed;
+        }
+
+        // new products always get the biggest order key, so they come first in the reversed collection
+        private void addToEnd(Product product) {
+            put(order.isEmpty() ? 0 : order.lastKey() + 1, product);
+        }
+
+        private boolean update(Product product) {
+            var key = orderKeyById.get(product.getId());
+            if (key == null)
+                return false;
+            put(key, product);
+            return true;
+        }
+
+        private Optional<Product> removeById(long id) {
+            var key = orderKeyById.get(id);
+            if (key == null)
+                return Optional.empty();
+            var removed = order.get(key);
+            order = order.remove(key);
+            orderKeyById = orderKeyById.remove(id);
+            unindex(removed);
+            return Optional.of(removed);
+        }
+
+        private void put(long key, Product product) {
+            var previousKey = orderKeyById.get(product.getId());
+            if (previousKey != null) {
+                unindex(order.get(previousKey));
+                order = order.remove(previousKey);
+            }
+            orderKeyById = orderKeyById.put(product.getId(), key);
+            order = order.put(key, product);
+            byPrice = byPrice.put(new PriceKey(product.getPrice(), product.getId()), product);
+            byCost = byCost.put(new CostKey(product.getManufactureCost(), product.getId()), product);
+            priceSum = priceSum.add(new BigDecimal(product.getPrice()));
+            costSum = costSum.add(new BigDecimal(product.getManufactureCost()));
+            if (product.getUnitOfMeasure() != null)
+                unitCounts.merge(product.getUnitOfMeasure(), 1, Integer::sum);
+        }
+
+        private void unindex(Product product) {
+            byPrice = byPrice.remove(new PriceKey(product.getPrice(), product.getId()));
+            byCost = byCost.remove(new CostKey(product.getManufactureCost(), product.getId()));
+            priceSum = priceSum.subtract(new BigDecimal(product.getPrice()));
+            costSum = costSum.subtract(new BigDecimal(product.getManufactureCost()));
+            if (product.getUnitOfMeasure() != null)
+                unitCounts.computeIfPresent(product.getUnitOfMeasure(), (unit, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    private final Object writeLock = new Object();
+    private volatile Snapshot current;
 
     public ProductRepo(List<Product> products) {
-        this.products = products;
+        var builder = new Builder(null);
+        for (var product : products)
+            builder.addToEnd(product);
+        current = new Snapshot(builder, 0);
+    }
+
+    @Override
+    public ProductSnapshot snapshot() {
+        return current;
+    }
+
+    @Override
+    public void add(Product product) {
+        synchronized (writeLock) {
+            var builder = new Builder(current);
+            builder.addToEnd(product);
+            publish(builder);
+        }
+    }
+
+    @Override
+    public void addAll(List<Product> products) {
+        synchronized (writeLock) {
+            var builder = new Builder(current);
+            for (var product : products)
+                builder.addToEnd(product);
+            publish(builder);
+        }
+    }
+
+    @Override
+    public boolean update(Product product) {
+        synchronized (writeLock) {
+            var builder = new Builder(current);
+            if (!builder.update(product))
+                return false;
+            publish(builder);
+            return true;
+        }
+    }
+
+    @Override
+    public void upsert(Product product) {
+        synchronized (writeLock) {
+            var builder = new Builder(current);
+            if (!builder.update(product))
+                builder.addToEnd(product);
+            publish(builder);
+        }
+    }
+
+    @Override
+    public Optional<Product> removeById(long id) {
+        synchronized (writeLock) {
+            var builder = new Builder(current);
+            var removed = builder.removeById(id);
+            if (removed.isPresent())
+                publish(builder);
+            return removed;
+        }
     }
 
     @Override
-    public List<Product> getProducts() {
-        return products;
+    public List<Product> removeAll(Collection<Long> ids) {
+        var removed = new ArrayList<Product>();
+        synchronized (writeLock) {
+            var builder = new Builder(current);
+            for (var id : ids)
+                builder.removeById(id).ifPresent(removed::add);
+            if (!removed.isEmpty())
+                publish(builder);
+        }
+        return removed;
+    }
+
+    @Override
+    public void setReversed(boolean reversed) {
+        synchronized (writeLock) {
+            if (current.reversed == reversed)
+                return;
+            var builder = new Builder(current);
+            builder.reversed = reversed;
+            publish(builder);
+        }
+    }
+
+    private void publish(Builder builder) {
+        current = new Snapshot(builder, current.version + 1);
+    }
+
+    /**
+     * read-only rows over the values of a snapshot index
+     */
+    private static ProductRows rowsOf(Iterable<Product> values, int size, LongFunction<Iterable<Product>> valuesAfter) {
+        return new Rows(values, size, valuesAfter);
+    }
+
+    private static final class Rows extends AbstractCollection<Product> implements ProductRows {
+        private final Iterable<Product> values;
+        // number of values, -1 to count them when asked
+        private final int size;
+        // values after the product with the id, null if it is not in the snapshot
+        private final LongFunction<Iterable<Product>> valuesAfter;
+
+        private Rows(Iterable<Product> values, int size, LongFunction<Iterable<Product>> valuesAfter) {
+            this.values = values;
+            this.size = size;
+            this.valuesAfter = valuesAfter;
+        }
+
+        @Override
+        public Iterator<Product> iterator() {
+            return values.iterator();
+        }
+
+        @Override
+        public Optional<Iterator<Product>> iteratorAfter(long id) {
+            return Optional.ofNullable(valuesAfter.apply(id)).map(Iterable::iterator);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return !values.iterator().hasNext();
+        }
+
+        @Override
+        public int size() {
+            if (size >= 0)
+                return size;
+            var count = 0;
+            for (var ignored : values)
+                count++;
+            return count;
+        }
     }
 }
@@ -6,35 +6,72 @@ import src.service.HashingService;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * user directory indexed by id and by name, reads do not take locks
+ */
 public class UserRepo implements src.Repositories.DI.UserRepo {
 
-    private final List<User> users ;
+    private record Index(ConcurrentHashMap<Integer, User> byId, ConcurrentHashMap<String, User> byName) {
+    }
+
+    private final HashingService hashService = new HashingService();
+    private volatile Index index;
 
     public UserRepo(List<User> users) {
-        this.users = users;
+        reload(users);
     }
 
     @Override
     public List<User> getUsers() {
-        return users;
+        return List.copyOf(index.byId().values());
     }
 
+    @Override
     public Optional<User> getUser(Integer id) {
-        return users
-                .stream()
-                .filter(u -> u.getId() == id)
-                .findFirst();
+        return Optional.ofNullable(index.byId().get(id));
+    }
+
+    @Override
+    public Optional<User> getUserByName(String name) {
+        if (name == null)
+            return Optional.empty();
+        return Optional.ofNullable(index.byName().get(name));
     }
 
-    public synchronized Optional<User> getUser(Request request) {
-        var hashService = new HashingService();
-        return users
-                .stream()
-                .filter(u -> u.getPassword()
-                        .equals(hashService.hash(request.userPassword))
-                        && u.getName().equals(request.userName))
-                .findFirst();
+    @Override
+    public Optional<User> getUser(Request request) {
+        return getUserByName(request.userName)
+                .filter(u -> u.getPassword().equals(hashService.hash(request.userPassword)));
     }
 
+    @Override
+    public boolean addUser(User user) {
+        var current = index;
+        if (current.byName().putIfAbsent(user.getName(), user) != null)
+            return false;
+        current.byId().put(user.getId(), user);
+        return true;
+    }
+
+    @Override
+    public void updateUser(User user) {
+        var current = index;
+        var previous = current.byId().put(user.getId(), user);
+        if (previous != null && !previous.getName().equals(user.getName()))
+            current.byName().remove(previous.getName(), previous);
+        current.byName().put(user.getName(), user);
+    }
+
+    @Override
+    public void reload(List<User> users) {
+        var byId = new ConcurrentHashMap<Integer, User>(users.size() * 2);
+        var byName = new ConcurrentHashMap<String, User>(users.size() * 2);
+        for (var user : users) {
+            byId.put(user.getId(), user);
+            byName.put(user.getName(), user);
+        }
+        index = new Index(byId, byName);
+    }
 }
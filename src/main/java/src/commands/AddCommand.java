@@ -4,7 +4,6 @@ import org.apache.commons.lang3.tuple.ImmutablePair;
 import src.db.SeqNames;
 import src.loggerUtils.LoggerManager;
 import src.models.Product;
-import src.models.User;
 import src.network.MessageType;
 import src.network.Request;
 import org.slf4j.Logger;
@@ -14,19 +13,16 @@ import src.interfaces.Command;
 import src.interfaces.CommandManagerCustom;
 import src.network.Response;
 import src.models.Role;
-import src.service.HashingService;
+import src.models.User;
 import src.service.ValidatorService;
 import src.utils.Argument;
 
 import java.util.*;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 
 public class AddCommand extends CommandBase implements Command {
 
     private final Logger logger;
-    private Lock lock = new ReentrantLock();
 
     public AddCommand(CommandManagerCustom commandManager) {
         super(commandManager, List.of(Role.MIDDLE_USER));
@@ -36,28 +32,16 @@ public class AddCommand extends CommandBase implements Command {
     }
 
     @Override
-    public boolean execute(String[] args) {
+    public boolean execute(String[] args, User user) {
         var request = new Request(MessageType.ADD);
-        request.userName = args[0];
-        request.userPassword = args[1];
+        request.authenticatedUser = user;
         return execute(request);
     }
 
     private Product fillInProduct() throws CommandInterruptionException {
         var inputService = commandManager.getInputService();
-        var maxId = Long.MIN_VALUE;
-        var products = commandManager.getProductsRepo().getProducts();
-
-        lock.lock();
-        try {
-            for (var product : products) {
-                maxId = Long.max(maxId, product.getId());
-            }
-        } finally {
-            lock.unlock();
-        }
-
-        var id = products.size() == 0 ? 1 : maxId + 1;
+        // the real id is taken from the allocator in execute
+        var id = 0L;
 
         var name = inputService.inputName();
         var coord = inputService.inputCoordinates();
@@ -77,7 +61,7 @@ public class AddCommand extends CommandBase implements Command {
             }
         }
         var prod = new Product(id, name, coord, price, manufCost,
-                unit, yesOrNo == 1 ? inputService.inputOrganization(products) : null);
+                unit, yesOrNo == 1 ? inputService.inputOrganization(commandManager.getProductsRepo().getProducts()) : null);
 
         return prod;
     }
@@ -93,26 +77,13 @@ public class AddCommand extends CommandBase implements Command {
             else
                 product = (Product) request.requiredArguments.get(0);
 
-            product.setId(commandManager.getDbProductManager().getNextId(SeqNames.productSeq).longValue());
-            Optional<User> foundUser;
-            lock.lock();
-            try {
-                var hashService = new HashingService();
-                foundUser = commandManager.getUsersRepo().getUsers()
-                        .stream()
-                        .filter(u -> u.getPassword()
-                                .equals(hashService.hash(request.userPassword))
-                                && u.getName().equals(request.userName))
-                        .findFirst();
-            } finally {
-                lock.unlock();
-            }
-            foundUser.ifPresent(product::setUser);
+            product.setId((long) commandManager.getIdAllocator(SeqNames.productSeqName).next());
+            resolveUser(request).ifPresent(product::setUser);
 
             if (product.getCoordinates() != null)
-                product.getCoordinates().setId(commandManager.getDbProductManager().getNextId(SeqNames.coordSeq));
+                product.getCoordinates().setId(commandManager.getIdAllocator(SeqNames.coordSeqName).next());
             if (product.getManufacturer() != null)
-                product.getManufacturer().setId(commandManager.getDbProductManager().getNextId(SeqNames.orgSeq).longValue());
+                product.getManufacturer().setId((long) commandManager.getIdAllocator(SeqNames.orgSeqName).next());
 
             if (!ValidatorService.validateProduct(product)) {
                 var resp = new Response("product has not met validation criteria");
@@ -120,28 +91,11 @@ public class AddCommand extends CommandBase implements Command {
                 return true;
             }
             //commandManager.getUndoManager().logAddCommand(id);
-            lock.lock();
-            try {
-                var products = commandManager.getProductsRepo().getProducts();
-                var maxId = Long.MIN_VALUE;
-                for (var prod : products) {
-                    maxId = Long.max(maxId, prod.getId());
-                }
-
-                commandManager.getDbProductManager().insert(product);
-                if (products.size() == 0) {
-                    products.add(product);
-                    var resp = new Response("product with id " + product.getId() + " added");
-                } else if (products.get(products.size() - 1).getId() == maxId)
-                    products.add(product);
-                else
-                    products.add(0, product);
-                var response = new Response("product with id " + product.getId() + " added");
-                sendToClient(response, request);
-                return true;
-            } finally {
-                lock.unlock();
-            }
+            commandManager.getDbProductManager().insert(product);
+            commandManager.getProductsRepo().add(product);
+            var response = new Response("product with id " + product.getId() + " added");
+            sendToClient(response, request);
+            return true;
         } catch (NoSuchElementException exception) {
             var response = new Response("adding product was canceled");
             sendToClient(response, request);
@@ -150,7 +104,7 @@ public class AddCommand extends CommandBase implements Command {
                 logger.info("adding product was successfully canceled");
             else {
                 logger.info("adding product was canceled by entered command");
-                commandManager.executeCommand(e.getEnteredCommand());
+                commandManager.executeCommand(e.getEnteredCommand(), request.authenticatedUser);
             }
         }
         return false;
@@ -0,0 +1,100 @@
+package src.commands;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import src.db.SeqNames;
+import src.interfaces.Command;
+import src.interfaces.CommandManagerCustom;
+import src.loggerUtils.LoggerManager;
+import src.models.Product;
+import src.models.Role;
+import src.models.User;
+import src.network.MessageType;
+import src.network.Request;
+import src.network.Response;
+import src.service.ValidatorService;
+import src.utils.Argument;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * adds a list of products with one batched write, replies with a single summary
+ */
+public class AddManyCommand extends CommandBase implements Command {
+
+    public AddManyCommand(CommandManagerCustom commandManager) {
+        super(commandManager, List.of(Role.MIDDLE_USER));
+        arguments = new LinkedList<>();
+        arguments.add(ImmutablePair.of(Argument.PRODUCT_LIST, 1));
+    }
+
+    @Override
+    public boolean execute(String[] args, User user) {
+        // products can not be typed into a script line
+        LoggerManager.getLogger(AddManyCommand.class).info("add_many can not be used in a script, the line is skipped");
+        return false;
+    }
+
+    @Override
+    public boolean execute(Request request) {
+        var products = request.requiredArguments.isEmpty() || !(request.requiredArguments.get(0) instanceof List<?> list)
+                ? null : toProducts(list);
+        if (products == null) {
+            sendToClient(new Response("a list of products is required"), request);
+            return false;
+        }
+        var user = resolveUser(request);
+        var db = commandManager.getDbProductManager();
+
+        var organizations = (int) products.stream().filter(p -> p.getManufacturer() != null).count();
+        var productIds = commandManager.getIdAllocator(SeqNames.productSeqName).next(products.size()).iterator();
+        var coordIds = commandManager.getIdAllocator(SeqNames.coordSeqName).next(products.size()).iterator();
+        var orgIds = commandManager.getIdAllocator(SeqNames.orgSeqName).next(organizations).iterator();
+
+        var valid = new ArrayList<Product>(products.size());
+        var rejected = new ArrayList<Integer>();
+        for (var i = 0; i < products.size(); i++) {
+            var product = products.get(i);
+            product.setId(productIds.next().longValue());
+            if (product.getCoordinates() != null)
+                product.getCoordinates().setId(coordIds.next());
+            if (product.getManufacturer() != null)
+                product.getManufacturer().setId(orgIds.next().longValue());
+            user.ifPresent(product::setUser);
+            if (ValidatorService.validateProduct(product))
+                valid.add(product);
+            else
+                rejected.add(i + 1);
+        }
+
+        if (!valid.isEmpty()) {
+            if (!db.insertAll(valid)) {
+                sendToClient(new Response("products were not added, try again"), request);
+                return false;
+            }
+            commandManager.getProductsRepo().addAll(valid);
+        }
+        var summary = valid.size() + " products added";
+        if (!rejected.isEmpty())
+            summary += ", products number " + rejected + " have not met validation criteria";
+        sendToClient(new Response(summary), request);
+        return true;
+    }
+
+    // null if anything in the list is not a product
+    private static List<Product> toProducts(List<?> list) {
+        var products = new ArrayList<Product>(list.size());
+        for (var item : list) {
+            if (!(item instanceof Product product))
+                return null;
+            products.add(product);
+        }
+        return products;
+    }
+
+    @Override
+    public String getInfo() {
+        return "add a list of products at once";
+    }
+}
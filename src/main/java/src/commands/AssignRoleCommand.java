@@ -4,6 +4,7 @@ import org.apache.commons.lang3.tuple.ImmutablePair;
 import src.interfaces.Command;
 import src.interfaces.CommandManagerCustom;
 import src.models.Role;
+import src.models.User;
 import src.network.MessageType;
 import src.network.Request;
 import src.network.Response;
@@ -22,12 +23,11 @@ public class AssignRoleCommand extends CommandBase implements Command {
     }
 
     @Override
-    public boolean execute(String[] args) {
+    public boolean execute(String[] args, User user) {
         var requestToSend = new Request(MessageType.CLEAR);
         requestToSend.requiredArguments.add(Integer.valueOf(args[0]));
         requestToSend.requiredArguments.add(Integer.valueOf(args[1]));
-        requestToSend.userName = args[2];
-        requestToSend.userPassword = args[3];
+        requestToSend.authenticatedUser = user;
         return execute(requestToSend);
     }
 
@@ -46,6 +46,7 @@ public class AssignRoleCommand extends CommandBase implements Command {
         resp.serverResponseToCommand = "done";
         user.get().role = roleToAssign;
         commandManager.getDbUserManager().update(user.get());
+        commandManager.getUsersRepo().updateUser(user.get());
         sendToClient(resp, request);
         return true;
     }
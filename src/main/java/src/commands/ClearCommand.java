@@ -6,7 +6,7 @@ import src.network.MessageType;
 import src.network.Request;
 import src.network.Response;
 import src.models.Role;
-import src.utils.Commands;
+import src.models.User;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -20,24 +20,21 @@ public class ClearCommand extends CommandBase implements Command {
 
     @Override
     public boolean execute(Request request) {
-        var prods = commandManager.getProductsRepo().getProducts();
-        var numbOFLoops = prods.size();
-        //commandManager.getUndoManager().startOrEndTransaction();
-        for (src.models.Product prod : prods) {
-            commandManager.executeCommand(Commands.REMOVE_BY_ID + " " + prod.getId() + " "
-                    + request.userName + " " + request.userPassword);
-        }
-        //commandManager.getUndoManager().startOrEndTransaction();
+        // only the products of the user are removed, as remove_by_id would do
+        var prods = List.copyOf(commandManager.getProductsRepo().getProducts())
+                .stream()
+                .filter(p -> isCreator(p, request))
+                .toList();
+        removeProducts(prods);
         var response = new Response("all elements were removed");
         sendToClient(response, request);
         return true;
     }
 
     @Override
-    public boolean execute(String[] request) {
+    public boolean execute(String[] request, User user) {
         var requestToSend = new Request(MessageType.CLEAR);
-        requestToSend.userName = request[0];
-        requestToSend.userPassword = request[1];
+        requestToSend.authenticatedUser = user;
         return execute(requestToSend);
     }
 
@@ -1,13 +1,24 @@
 package src.commands;
 
 import org.apache.commons.lang3.tuple.Pair;
+import src.container.SettingsContainer;
+import src.Repositories.DI.ProductRows;
+import src.models.Product;
 import src.network.Request;
 import src.network.Response;
+import src.interfaces.CommandKind;
 import src.interfaces.CommandManagerCustom;
 import src.models.Role;
+import src.models.User;
+import src.network_utils.SessionMailbox;
+import src.service.PageCursor;
 import src.utils.Argument;
+import src.utils.ResultRenderer;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 
 public class CommandBase {
     protected CommandManagerCustom commandManager;
@@ -17,16 +28,125 @@ public class CommandBase {
         this.rolesNotAllowed = rolesNotAllowed;
     }
     protected List<Pair<Argument, Integer>> arguments;
+    // commands that only read set it to READ
+    protected CommandKind kind = CommandKind.WRITE;
 
+    // sent on the thread of the request, enqueueing does not block and the responses of a connection keep its request order
     protected void sendToClient(Response response, Request request){
-        var data = commandManager.getSerializationManager().serialize(response);
-        var executorService = commandManager.getExecutorService();
-        executorService.submit(() -> commandManager.getSendingManager().send(data, request.interlayerChannel, request.clientPort));
+        commandManager.getSendingManager().send(response, request);
     }
+
+    /**
+     * sends product rows as a whole, as one page from the cursor of the request (pageSize > 0)
+     * or as a stream of pages (streamResult), each page is built only after the client has read most of the previous ones
+     */
+    protected void sendProducts(ProductRows products, Request request, String messageIfEmpty){
+        var pageSize = request.pageSize;
+        if (pageSize <= 0 && request.streamResult)
+            pageSize = SettingsContainer.getSettings().streamPageSize;
+        if (pageSize <= 0) {
+            var rows = new ArrayList<Product>();
+            products.forEach(rows::add);
+            sendToClient(toResponse(rows, request, messageIfEmpty), request);
+            return;
+        }
+        var cursor = PageCursor.decode(request.cursor);
+        var iterator = cursor.seek(products);
+        if (!request.streamResult) {
+            sendToClient(nextPage(iterator, cursor.getOffset(), pageSize, request, messageIfEmpty), request);
+            return;
+        }
+        // the request counts as running for its connection until the last page is sent, so the responses keep their order
+        sendPages(iterator, cursor.getOffset(), pageSize, request, messageIfEmpty, SessionMailbox.holdCurrentTask());
+    }
+
+    // sends a page and the rest of the stream once the client has read it, done is run after the last page
+    private void sendPages(Iterator<Product> iterator, int offset, int pageSize, Request request, String messageIfEmpty,
+                           Runnable done){
+        var goesOn = false;
+        try {
+            var response = nextPage(iterator, offset, pageSize, request, messageIfEmpty);
+            if (!response.hasMore) {
+                sendToClient(response, request);
+                return;
+            }
+            var nextOffset = offset + pageSize;
+            goesOn = commandManager.getSendingManager().sendThenOnDrain(response, request,
+                    () -> sendPages(iterator, nextOffset, pageSize, request, null, done));
+        } finally {
+            if (!goesOn)
+                done.run();
+        }
+    }
+
+    private Response nextPage(Iterator<Product> iterator, int offset, int pageSize, Request request, String messageIfEmpty){
+        var rows = new ArrayList<Product>(pageSize);
+        while (rows.size() < pageSize && iterator.hasNext()) {
+            rows.add(iterator.next());
+        }
+        var response = toResponse(rows, request, messageIfEmpty);
+        response.hasMore = iterator.hasNext();
+        if (response.hasMore)
+            response.nextCursor = new PageCursor(offset + rows.size(), rows.get(rows.size() - 1).getId()).encode();
+        return response;
+    }
+
+    private Response toResponse(List<Product> rows, Request request, String messageIfEmpty){
+        var response = new Response();
+        if (rows.isEmpty())
+            response.serverResponseToCommand = messageIfEmpty;
+        else if (request.structuredResult)
+            response.products = rows;
+        else
+            response.serverResponseToCommand = ResultRenderer.renderProducts(rows);
+        return response;
+    }
+
+    /**
+     * user the server has authenticated the request as,
+     * requests made from scripts carry the user the script was sent by
+     */
+    protected Optional<User> resolveUser(Request request){
+        return Optional.ofNullable(request.authenticatedUser);
+    }
+
+    /** whether the product was created by the user the request comes from */
+    protected boolean isCreator(Product product, Request request){
+        var user = resolveUser(request);
+        return user.isPresent() && product.getUser() != null && product.getUser().getId() == user.get().getId();
+    }
+
+    /**
+     * deletes the products from the db in one transaction and then from the collection
+     *
+     * @return number of removed products
+     */
+    protected int removeProducts(List<Product> products){
+        if (products.isEmpty() || !commandManager.getDbProductManager().deleteAll(products))
+            return 0;
+        return commandManager.getProductsRepo().removeAll(products.stream().map(Product::getId).toList()).size();
+    }
+
     public List<Pair<Argument, Integer>> getRequiredArguments(){
         return arguments;
     }
 
+    public CommandKind getKind(){
+        return kind;
+    }
+
+    public long getLockKey(Request request){
+        return 0;
+    }
+
+    /** the argument at the index if the request has one of that type, clients may send anything */
+    protected static <T> Optional<T> argument(Request request, int index, Class<T> type){
+        if (request.requiredArguments == null || index >= request.requiredArguments.size())
+            return Optional.empty();
+        var value = request.requiredArguments.get(index);
+        return type.isInstance(value) ? Optional.of(type.cast(value)) : Optional.empty();
+    }
+
     public boolean isAllowedToExecute(Role role){
         return !rolesNotAllowed.contains(role);
     }
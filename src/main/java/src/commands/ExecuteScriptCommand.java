@@ -9,6 +9,7 @@ import src.network.MessageType;
 import src.network.Request;
 import src.network.Response;
 import src.models.Role;
+import src.models.User;
 import src.utils.Argument;
 
 import java.nio.file.Path;
@@ -29,8 +30,9 @@ public class ExecuteScriptCommand extends CommandBase implements Command {
     }
 
     @Override
-    public synchronized boolean execute(String[] args){
+    public synchronized boolean execute(String[] args, User user){
         var request = new Request(MessageType.EXECUTE_SCRIPT);
+        request.authenticatedUser = user;
         request.requiredArguments.add(commandManager.getExecuteScriptHandyMap());
         request.requiredArguments.add(recDepth);
         request.requiredArguments.add(args[0]);
@@ -49,6 +51,12 @@ public class ExecuteScriptCommand extends CommandBase implements Command {
         else{
             scriptName = scripts.keySet().iterator().next();
         }
+        // the commands of the script run as the user the script was sent by
+        var user = resolveUser(request);
+        if (user.isEmpty()) {
+            sendToClient(new Response("script was not executed, the user is unknown"), request);
+            return false;
+        }
         try {
             if (scriptFilesBeingExecuted.contains(scriptName)) {
                 var currentRecursionDepth = scriptFilesBeingExecuted.stream().filter(s -> s.equals(scriptName)).count();
@@ -65,7 +73,7 @@ public class ExecuteScriptCommand extends CommandBase implements Command {
             String command;
             commandManager.getInputService().setIterator(reader);
             while (reader.hasNext() && (command = reader.next()) != null) {
-                commandManager.executeCommand(command  + " " + request.userName + " " + request.userPassword);
+                commandManager.executeCommand(command, user.get());
                 commandManager.getInputService().setIterator(reader);
             }
             logger.info("Commands ended.");
@@ -2,9 +2,10 @@ package src.commands;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
-import src.models.Product;
 import src.interfaces.Command;
+import src.interfaces.CommandKind;
 import src.interfaces.CommandManagerCustom;
+import src.models.User;
 import src.network.MessageType;
 import src.network.Request;
 import src.network.Response;
@@ -17,34 +18,29 @@ public class FilterByManufactureCostCommand extends CommandBase implements Comma
         super(commandManager, List.of());
         arguments = new LinkedList<>();
         arguments.add(ImmutablePair.of(Argument.COST, 1));
+        kind = CommandKind.READ;
     }
 
     @Override
-    public boolean execute(String[] args) {
+    public boolean execute(String[] args, User user) {
         var cost = Double.parseDouble(args[0]);
         var request = new Request(MessageType.FILTER_BY_MANUFACTURE_COST);
-        request.userName = args[1];
-        request.userPassword = args[2];
+        request.authenticatedUser = user;
         request.requiredArguments.add(cost);
         return execute(request);
     }
 
     @Override
     public boolean execute(Request request) {
-        Response response;
         try {
-            response = new Response(null);
             var manufactureCost = (Double) request.requiredArguments.get(0);
-            var products = commandManager.getProductsRepo().getProducts();
-            for (Product product : products) {
-                if(product.getManufactureCost().doubleValue() == manufactureCost)
-                    response.serverResponseToCommand += product.toString() + "\n\n";
-            }
+            var products = commandManager.getProductsRepo().getWithManufactureCost(manufactureCost);
+            sendProducts(products, request, "no such elements found");
         }
         catch (Exception exception){
-            response = new Response(String.format("Manufacture cost must be from %s to %s. Try typing this command again", 0, Double.MAX_VALUE));
+            var response = new Response(String.format("Manufacture cost must be from %s to %s. Try typing this command again", 0, Double.MAX_VALUE));
+            sendToClient(response, request);
         }
-        sendToClient(response, request);
         return true;
     }
 
@@ -3,7 +3,9 @@ package src.commands;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import src.interfaces.Command;
+import src.interfaces.CommandKind;
 import src.interfaces.CommandManagerCustom;
+import src.models.User;
 import src.network.MessageType;
 import src.network.Request;
 import src.network.Response;
@@ -17,22 +19,22 @@ public class HelpCommand extends CommandBase implements Command {
     public HelpCommand(CommandManagerCustom commandManager){
         super(commandManager, List.of());
         arguments = new LinkedList<>();
+        kind = CommandKind.READ;
     }
 
 
     @Override
-    public boolean execute(String[] request) {
+    public boolean execute(String[] request, User user) {
         var requestToSend = new Request(MessageType.HELP);
-        requestToSend.userName = request[0];
-        requestToSend.userPassword = request[1];
+        requestToSend.authenticatedUser = user;
         return execute(requestToSend);
     }
 
     @Override
-    public synchronized boolean execute(Request request) {
+    public boolean execute(Request request) {
         var response = new Response();
         StringBuilder sb = new StringBuilder();
-        var foundUser = commandManager.getUsersRepo().getUser(request);
+        var foundUser = resolveUser(request);
         if (foundUser.isEmpty())
             return false;
         for (var commInfo : commandManager.getCommandsInfo(foundUser.get().role)
@@ -1,11 +1,13 @@
 package src.commands;
 
 import src.interfaces.Command;
+import src.interfaces.CommandKind;
 import src.interfaces.CommandManagerCustom;
 import src.network.MessageType;
 import src.network.Request;
 import src.network.Response;
 import src.models.Role;
+import src.models.User;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -15,13 +17,13 @@ public class HistoryCommand extends CommandBase implements Command {
     public HistoryCommand(CommandManagerCustom commandManager){
         super(commandManager, List.of(Role.MIN_USER));
         arguments = new LinkedList<>();
+        kind = CommandKind.READ;
     }
 
     @Override
-    public boolean execute(String[] args) {
+    public boolean execute(String[] args, User user) {
         var requestToSend = new Request(MessageType.HISTORY);
-        requestToSend.userName = args[0];
-        requestToSend.userPassword = args[1];
+        requestToSend.authenticatedUser = user;
         return execute(requestToSend);
     }
     @Override
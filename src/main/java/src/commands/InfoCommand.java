@@ -1,12 +1,14 @@
 package src.commands;
 
 import src.interfaces.Command;
+import src.interfaces.CommandKind;
 import src.interfaces.CommandManagerCustom;
 import src.models.Product;
 import src.network.MessageType;
 import src.network.Request;
 import src.network.Response;
 import src.models.Role;
+import src.models.User;
 
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
@@ -17,25 +19,32 @@ public class InfoCommand extends CommandBase implements Command {
     public InfoCommand(CommandManagerCustom commandManager) {
         super(commandManager, List.of(Role.MIN_USER, Role.MIDDLE_USER));
         arguments = new LinkedList<>();
+        kind = CommandKind.READ;
     }
 
     @Override
-    public boolean execute(String[] args) {
+    public boolean execute(String[] args, User user) {
         var request = new Request(MessageType.INFO);
-        request.userName = args[0];
-        request.userPassword = args[1];
+        request.authenticatedUser = user;
         return execute(request);
     }
 
     @Override
     public boolean execute(Request request) {
-        var products = commandManager.getProductsRepo().getProducts();
+        var stats = commandManager.getProductsRepo().getStats();
         var time = commandManager.getInitializationTime();
         var timeFormatted = time == null ? "Collection was not initialized" : time
                 .atZone(ZoneId.of("Europe/Moscow"))
                 .format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"));
         var toPrint = String.format("type of colleciton: %s\ninitialization date: %s\nnumber of elements: %s", Product.class,
-                timeFormatted, products.size());
+                timeFormatted, stats.count());
+        if (stats.count() > 0)
+            toPrint += String.format("\nprice: min %s, max %s, average %.2f" +
+                            "\nmanufacture cost: min %s, max %s, average %.2f" +
+                            "\nelements by unit of measure: %s",
+                    stats.minPrice(), stats.maxPrice(), stats.averagePrice(),
+                    stats.minCost(), stats.maxCost(), stats.averageCost(),
+                    stats.unitCounts());
         var response = new Response();
         response.serverResponseToCommand = toPrint;
         sendToClient(response, request);
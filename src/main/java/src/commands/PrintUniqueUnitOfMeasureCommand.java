@@ -1,14 +1,14 @@
 package src.commands;
 
 import org.apache.commons.lang3.tuple.Pair;
-import src.models.UnitOfMeasure;
 import src.interfaces.Command;
+import src.interfaces.CommandKind;
 import src.interfaces.CommandManagerCustom;
+import src.models.User;
 import src.network.MessageType;
 import src.network.Request;
 import src.network.Response;
 import src.utils.Argument;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -16,27 +16,23 @@ public class PrintUniqueUnitOfMeasureCommand extends CommandBase implements Comm
     public PrintUniqueUnitOfMeasureCommand(CommandManagerCustom commandManager){
         super(commandManager, List.of());
         arguments = new LinkedList<>();
+        kind = CommandKind.READ;
     }
 
     @Override
-    public boolean execute(String[] args) {
+    public boolean execute(String[] args, User user) {
         var request = new Request(MessageType.PRINT_UNIQUE_UNIT_OF_MEASURE);
-        request.userName = args[0];
-        request.userPassword = args[1];
+        request.authenticatedUser = user;
         return execute(request);
     }
 
     @Override
-    public synchronized boolean execute(Request request) {
+    public boolean execute(Request request) {
         var response = new Response();
-        var products = commandManager.getProductsRepo().getProducts();
-        var set = new HashSet<UnitOfMeasure>();
+        // units are counted by the repo, only the ones in use are kept
+        var units = commandManager.getProductsRepo().getStats().unitCounts().keySet();
         var res = new StringBuilder();
-        for(var prod : products){
-            if(prod.getUnitOfMeasure() != null)
-                set.add(prod.getUnitOfMeasure());
-        }
-        for (var unit: set
+        for (var unit: units
         ) {
             res.append(unit.toString()).append('\n');
         }
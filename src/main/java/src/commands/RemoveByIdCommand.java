@@ -1,18 +1,17 @@
 package src.commands;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
-import src.models.Product;
 import src.interfaces.Command;
+import src.interfaces.CommandKind;
 import src.interfaces.CommandManagerCustom;
 import src.network.MessageType;
 import src.network.Request;
 import src.network.Response;
 import src.models.Role;
-import src.service.HashingService;
+import src.models.User;
 import src.utils.Argument;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Objects;
 
 public class RemoveByIdCommand extends CommandBase implements Command {
 
@@ -20,37 +19,32 @@ public class RemoveByIdCommand extends CommandBase implements Command {
         super(commandManager,  List.of(Role.MIN_USER, Role.MIDDLE_USER));
         arguments = new LinkedList<>();
         arguments.add(ImmutablePair.of(Argument.ID, 1));
+        kind = CommandKind.KEYED_WRITE;
     }
 
     @Override
-    public boolean execute(String[] args) {
+    public boolean execute(String[] args, User user) {
         var request = new Request(MessageType.REMOVE_BY_ID);
         request.requiredArguments.add(Long.parseLong(args[0]));
-        request.userName = args[1];
-        request.userPassword = args[2];
+        request.authenticatedUser = user;
         return execute(request);
     }
 
     @Override
-    public synchronized boolean execute(Request request) {
+    public boolean execute(Request request) {
         var resp = new Response();
         try {
-            var id = (Long)request.requiredArguments.get(0);
-            var prods = commandManager.getProductsRepo().getProducts();
-            if (prods.stream().map(Product::getId).toList().contains(id)) {
-                var prodWithId = prods.stream().filter(p -> Objects.equals(p.getId(), id)).findFirst();
-                if (prodWithId.isEmpty())
-                    throw new NumberFormatException();
-                var hashingService = new HashingService();
-                var hashedUserPassword = hashingService.hash(request.userPassword);
-                var user = prodWithId.get().getUser();
-                if(!hashedUserPassword.equals(user.getPassword()) || !request.userName.equals(user.getName()))
+            var id = argument(request, 0, Long.class).orElseThrow(NumberFormatException::new);
+            var repo = commandManager.getProductsRepo();
+            var prodWithId = repo.getById(id);
+            if (prodWithId.isPresent()) {
+                if(!isCreator(prodWithId.get(), request))
                     resp.serverResponseToCommand = String.format("product with id: %s was not removed," +
                             " because you are not the creator of that product", prodWithId.get().getId());
                 else{
                     //commandManager.getUndoManager().logRemoveCommand(prodWithId.get());
                     commandManager.getDbProductManager().delete(prodWithId.get());
-                    prods.remove(prodWithId.get());
+                    repo.removeById(id);
                     resp.serverResponseToCommand = String.format("product with id: %s was successfully removed", prodWithId.get().getId());
                 }
                 sendToClient(resp, request);
@@ -66,6 +60,12 @@ public class RemoveByIdCommand extends CommandBase implements Command {
         return true;
     }
 
+    @Override
+    public long getLockKey(Request request) {
+        // a request without a proper id still takes a lock, execute then reports the id
+        return argument(request, 0, Long.class).orElse(0L);
+    }
+
     @Override
     public String getInfo() {
         return "remove an element from the collection by its ID.";
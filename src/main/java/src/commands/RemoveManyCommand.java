@@ -0,0 +1,79 @@
+package src.commands;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import src.interfaces.Command;
+import src.interfaces.CommandManagerCustom;
+import src.models.Product;
+import src.models.Role;
+import src.models.User;
+import src.network.MessageType;
+import src.network.Request;
+import src.network.Response;
+import src.utils.Argument;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * removes the products with the given ids that belong to the user with one batched write
+ */
+public class RemoveManyCommand extends CommandBase implements Command {
+
+    public RemoveManyCommand(CommandManagerCustom commandManager) {
+        super(commandManager, List.of(Role.MIN_USER, Role.MIDDLE_USER));
+        arguments = new LinkedList<>();
+        arguments.add(ImmutablePair.of(Argument.ID_LIST, 1));
+    }
+
+    @Override
+    public boolean execute(String[] args, User user) {
+        var request = new Request(MessageType.REMOVE_MANY);
+        var ids = new ArrayList<Long>();
+        for (var i = 0; i < args.length; i++)
+            ids.add(Long.parseLong(args[i]));
+        request.requiredArguments.add(ids);
+        request.authenticatedUser = user;
+        return execute(request);
+    }
+
+    @Override
+    public boolean execute(Request request) {
+        if (request.requiredArguments.isEmpty() || !(request.requiredArguments.get(0) instanceof List<?> idList)) {
+            sendToClient(new Response("a list of ids is required"), request);
+            return false;
+        }
+        var ids = new LinkedHashSet<Long>();
+        for (var id : idList) {
+            if (!(id instanceof Number number)) {
+                sendToClient(new Response("a list of ids is required"), request);
+                return false;
+            }
+            ids.add(number.longValue());
+        }
+
+        var snapshot = commandManager.getProductsRepo().snapshot();
+        var owned = new ArrayList<Product>();
+        var notOwned = 0;
+        var missing = new ArrayList<Long>();
+        for (var id : ids) {
+            var product = snapshot.getById(id);
+            if (product.isEmpty())
+                missing.add(id);
+            else if (isCreator(product.get(), request))
+                owned.add(product.get());
+            else
+                notOwned++;
+        }
+        sendToClient(new Response(removeProducts(owned) + " products removed"
+                + (notOwned > 0 ? ", " + notOwned + " were not removed because you are not their creator" : "")
+                + (missing.isEmpty() ? "" : ", no products with ids " + missing)), request);
+        return true;
+    }
+
+    @Override
+    public String getInfo() {
+        return "remove the products with the given ids";
+    }
+}
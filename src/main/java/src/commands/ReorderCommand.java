@@ -6,8 +6,8 @@ import src.network.MessageType;
 import src.network.Request;
 import src.network.Response;
 import src.models.Role;
+import src.models.User;
 
-import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -19,22 +19,25 @@ public class ReorderCommand extends CommandBase implements Command {
     }
 
     @Override
-    public boolean execute(String[] args) {
+    public boolean execute(String[] args, User user) {
         var request = new Request(MessageType.REORDER);
-        request.userName = args[0];
-        request.userPassword = args[1];
+        request.authenticatedUser = user;
         return execute(request);
     }
 
     @Override
     public boolean execute(Request request) {
         var resp = new Response();
-        Collections.reverse(commandManager.getProductsRepo().getProducts());
-        commandManager.getDbProductManager().markReversedCollection();
+        // the direction comes from the db, other servers may have switched it since this one has last synced
+        var reversed = commandManager.getDbProductManager().markReversedCollection();
         //commandManager
         //        .getUndoManager()
         //        .logReorderCommand();
-        resp.serverResponseToCommand = "collection was reordered successfully";
+        if (reversed.isPresent()) {
+            commandManager.getProductsRepo().setReversed(reversed.get());
+            resp.serverResponseToCommand = "collection was reordered successfully";
+        } else
+            resp.serverResponseToCommand = "collection was not reordered, try again later";
         sendToClient(resp, request);
         return true;
     }
@@ -1,11 +1,11 @@
 package src.commands;
 
-import src.models.Product;
 import src.interfaces.Command;
+import src.interfaces.CommandKind;
 import src.interfaces.CommandManagerCustom;
+import src.models.User;
 import src.network.MessageType;
 import src.network.Request;
-import src.network.Response;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -15,32 +15,21 @@ public class ShowCommand extends CommandBase implements Command {
     public ShowCommand(CommandManagerCustom commandManager) {
         super(commandManager, List.of());
         arguments = new LinkedList<>();
+        kind = CommandKind.READ;
     }
 
     @Override
-    public boolean execute(String[] args) {
+    public boolean execute(String[] args, User user) {
         var request = new Request(MessageType.SHOW);
-        request.userName = args[0];
-        request.userPassword = args[1];
+        request.authenticatedUser = user;
         return execute(request);
     }
 
     @Override
-    public synchronized boolean execute(Request request) {
-        var resp = new Response();
-        var prods = new StringBuilder();
+    public boolean execute(Request request) {
         var products = commandManager.getProductsRepo().getProducts();
-        if (products == null || products.size() == 0) {
-            resp.serverResponseToCommand = "there is no products yet.. add a new one";
-            sendToClient(resp, request);
-            return true;
-        }
-        for (Product product : products) {
-            String mess = product.toString() + '\n' + '\n';
-            prods.append(mess);
-        }
-        resp.serverResponseToCommand = prods.toString();
-        sendToClient(resp, request);
+        // not synchronized: a streamed show waits for the client between pages
+        sendProducts(products, request, "there is no products yet.. add a new one");
         return true;
     }
 
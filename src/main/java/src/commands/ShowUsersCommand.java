@@ -1,44 +1,42 @@
 package src.commands;
 
 import src.interfaces.Command;
+import src.interfaces.CommandKind;
 import src.interfaces.CommandManagerCustom;
 import src.models.Role;
+import src.models.User;
 import src.network.MessageType;
 import src.network.Request;
 import src.network.Response;
+import src.utils.ResultRenderer;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.locks.ReentrantLock;
 
 public class ShowUsersCommand extends CommandBase implements Command {
-    private ReentrantLock lock = new ReentrantLock();
 
     public ShowUsersCommand(CommandManagerCustom commandManager) {
         super(commandManager, List.of(Role.MIN_USER, Role.MIDDLE_USER));
         arguments = new LinkedList<>();
+        kind = CommandKind.READ;
     }
 
     @Override
-    public boolean execute(String[] args) {
+    public boolean execute(String[] args, User user) {
         var requestToSend = new Request(MessageType.SHOW_USERS);
-        requestToSend.userName = args[0];
-        requestToSend.userPassword = args[1];
+        requestToSend.authenticatedUser = user;
         return execute(requestToSend);
     }
 
     @Override
     public boolean execute(Request request) {
         var users = commandManager.getUsersRepo().getUsers();
-        var str = new StringBuilder();
-        lock.lock();
-        try{
-            users.forEach(u-> str.append(u.toString()).append("\n\n"));
-        }
-        finally {
-            lock.unlock();
-        }
-        var response = new Response(str.toString());
+        var response = new Response();
+        if (request.structuredResult)
+            response.users = new ArrayList<>(users);
+        else
+            response.serverResponseToCommand = ResultRenderer.renderUsers(users);
         sendToClient(response, request);
         return false;
     }
@@ -7,12 +7,13 @@ import org.slf4j.Logger;
 import src.exceptions.CommandInterruptionException;
 import src.exceptions.InterruptionCause;
 import src.interfaces.Command;
+import src.interfaces.CommandKind;
 import src.interfaces.CommandManagerCustom;
 import src.network.MessageType;
 import src.network.Request;
 import src.network.Response;
 import src.models.Role;
-import src.service.HashingService;
+import src.models.User;
 import src.service.InputService;
 import src.service.ValidatorService;
 import src.utils.Argument;
@@ -35,10 +36,11 @@ public class UpdateByIdCommand extends CommandBase implements Command {
         logger = LoggerManager.getLogger(UpdateByIdCommand.class);
         arguments = new LinkedList<>();
         arguments.add(ImmutablePair.of(Argument.PRODUCT, 1));
+        kind = CommandKind.KEYED_WRITE;
     }
 
     @Override
-    public boolean execute(String[] args) {
+    public boolean execute(String[] args, User user) {
         try {
             var products = commandManager.getProductsRepo().getProducts();
             var name = inputService.inputName();
@@ -61,8 +63,7 @@ public class UpdateByIdCommand extends CommandBase implements Command {
                     unit, yesOrNo == 1 ? inputService.inputOrganization(products) : null);
 
             var request = new Request(MessageType.UPDATE_BY_ID);
-            request.userName = args[1];
-            request.userPassword = args[2];
+            request.authenticatedUser = user;
             request.requiredArguments.add(prod);
             return execute(request);
 
@@ -71,7 +72,7 @@ public class UpdateByIdCommand extends CommandBase implements Command {
                 logger.info("adding product was successfully canceled");
             else {
                 logger.info("adding product was canceled by entered command");
-                commandManager.executeCommand(e.getEnteredCommand());
+                commandManager.executeCommand(e.getEnteredCommand(), user);
             }
         }
         return false;
@@ -80,9 +81,9 @@ public class UpdateByIdCommand extends CommandBase implements Command {
     @Override
     public boolean execute(Request request) {
         var resp = new Response(null);
-        var prod = (Product) request.requiredArguments.get(0);
-        var id = prod.getId();
-        var products = commandManager.getProductsRepo().getProducts();
+        var prod = argument(request, 0, Product.class).orElse(null);
+        var id = prod == null || prod.getId() == null ? 0 : prod.getId();
+        var repo = commandManager.getProductsRepo();
         if (id <= 0) {
             resp.serverResponseToCommand = "ID must be a number greater than 0. Try typing this command again";
             sendToClient(resp, request);
@@ -94,24 +95,19 @@ public class UpdateByIdCommand extends CommandBase implements Command {
             return true;
         }
         logger.info("updating product with id: " + id);
-        var match = products.stream().filter(p -> p.getId().equals(id)).toArray();
-        if (match.length == 0) {
+        var match = repo.getById(id);
+        if (match.isEmpty()) {
             resp.serverResponseToCommand = "no element with such id";
         } else {
-            var hashingService = new HashingService();
-            var hashedUserPassword = hashingService.hash(request.userPassword);
-            var product = ((Product) match[0]);
-            var user = product.getUser();
-            if (!hashedUserPassword.equals(user.getPassword()) || !request.userName.equals(user.getName()))
+            var product = match.get();
+            if (!isCreator(product, request))
                 resp.serverResponseToCommand = String.format("product with id: %s was not updated," +
                         " because you are not the creator of that product", product.getId());
             else {
                 prod.setUser(product.getUser());
                 commandManager.getDbProductManager().update(prod);
-                var idInCollection = products.indexOf(product);
                 //commandManager.getUndoManager().logUpdateCommand(prod);
-                products.remove(prod);
-                products.add(idInCollection, prod);
+                repo.update(prod);
                 resp.serverResponseToCommand = "Element was updated successfully";
             }
         }
@@ -119,6 +115,12 @@ public class UpdateByIdCommand extends CommandBase implements Command {
         return true;
     }
 
+    @Override
+    public long getLockKey(Request request) {
+        // a request without a proper product still takes a lock, execute then reports it
+        return argument(request, 0, Product.class).map(Product::getId).orElse(0L);
+    }
+
     @Override
     public String getInfo() {
         return "update the element`s value, whose ID is equal to the given." +
@@ -0,0 +1,25 @@
+package src.db;
+
+/**
+ * the codes are stored in changeLog and read by the other servers, so they must not change
+ */
+public enum ChangeEntity {
+    PRODUCT(0),
+    USER(1),
+    // the order of the whole collection
+    COLLECTION(2);
+
+    public final int code;
+
+    ChangeEntity(int code) {
+        this.code = code;
+    }
+
+    /** null for a code this server does not know */
+    public static ChangeEntity fromCode(int code) {
+        for (var entity : values())
+            if (entity.code == code)
+                return entity;
+        return null;
+    }
+}
@@ -0,0 +1,88 @@
+package src.db;
+
+import org.slf4j.Logger;
+import src.container.SettingsContainer;
+import src.loggerUtils.LoggerManager;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * reads the changes other servers have written to the db since the last poll
+ */
+public class ChangeFeed {
+    private final Logger logger = LoggerManager.getLogger(ChangeFeed.class);
+    private long lastAppliedId;
+    private long lastCheckMillis;
+
+    /**
+     * @param lastAppliedId collection version the in-memory collection was loaded at
+     */
+    public ChangeFeed(long lastAppliedId) {
+        this.lastAppliedId = lastAppliedId;
+    }
+
+    public synchronized long getLastAppliedId() {
+        return lastAppliedId;
+    }
+
+    /**
+     * moves past the versions of changes this server has just committed, they are already in memory.
+     * Only possible when nothing is missed between, otherwise the next poll reads and skips them
+     *
+     * @param fromVersion version before the changes
+     * @param toVersion   version of the last of them
+     */
+    public synchronized void skipOwnChanges(long fromVersion, long toVersion) {
+        if (lastAppliedId == fromVersion)
+            lastAppliedId = toVersion;
+    }
+
+    /**
+     * @return changes made by other servers after the last applied one, oldest first.
+     * Changes made by this server are already in memory and are only skipped over.
+     * The log is read only when the collection version has moved, and the version is checked
+     * at most once per sync_check_interval_ms
+     */
+    public synchronized List<ChangeLogEntry> poll() {
+        var result = new ArrayList<ChangeLogEntry>();
+        var settings = SettingsContainer.getSettings();
+        var now = System.currentTimeMillis();
+        if (now - lastCheckMillis < settings.syncCheckIntervalMillis)
+            return result;
+        lastCheckMillis = now;
+        try (var connection = ConnectionContainer.getConnection()) {
+            var version = DbCollectionBase.readVersion(connection);
+            if (version == null || version.version() == lastAppliedId)
+                return result;
+            try (var st = connection.prepareStatement(selectSince)) {
+                st.setLong(1, lastAppliedId);
+                st.setLong(2, version.version());
+                try (var rows = st.executeQuery()) {
+                    while (rows.next()) {
+                        var id = rows.getLong("id");
+                        lastAppliedId = id;
+                        var entity = ChangeEntity.fromCode(rows.getInt("entity"));
+                        var operation = ChangeOperation.fromCode(rows.getInt("operation"));
+                        // written by a newer server
+                        if (entity == null || operation == null) {
+                            logger.warn("change " + id + " has an unknown entity or operation, it is skipped");
+                            continue;
+                        }
+                        var entry = new ChangeLogEntry(id, entity, operation, rows.getLong("entityid"),
+                                rows.getObject("serverid", UUID.class));
+                        if (!ServerId.value.equals(entry.serverId()))
+                            result.add(entry);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.error(e.getMessage());
+        }
+        return result;
+    }
+
+    private final String selectSince = "select id, entity, operation, entityId, serverId from changeLog where id > ? and id <= ? order by id";
+}
@@ -0,0 +1,11 @@
+package src.db;
+
+import java.util.UUID;
+
+/**
+ * row of the changeLog table, written in the same transaction as the change itself
+ *
+ * @param serverId {@link ServerId} of the server that made the change, null for servers of older releases
+ */
+public record ChangeLogEntry(long id, ChangeEntity entity, ChangeOperation operation, long entityId, UUID serverId) {
+}
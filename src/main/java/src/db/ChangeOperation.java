@@ -0,0 +1,25 @@
+package src.db;
+
+/**
+ * the codes are stored in changeLog and read by the other servers, so they must not change
+ */
+public enum ChangeOperation {
+    INSERT(0),
+    UPDATE(1),
+    DELETE(2),
+    REVERSE(3);
+
+    public final int code;
+
+    ChangeOperation(int code) {
+        this.code = code;
+    }
+
+    /** null for a code this server does not know */
+    public static ChangeOperation fromCode(int code) {
+        for (var operation : values())
+            if (operation.code == code)
+                return operation;
+        return null;
+    }
+}
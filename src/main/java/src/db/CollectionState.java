@@ -1,6 +1,19 @@
 package src.db;
 
+/**
+ * the codes are stored in collectionState.reversed and in the change log rows of the collection order
+ */
 public enum CollectionState {
-    NORMAL,
-    REVERSED
+    NORMAL(0),
+    REVERSED(1);
+
+    public final int code;
+
+    CollectionState(int code) {
+        this.code = code;
+    }
+
+    public static CollectionState fromCode(int code) {
+        return code == REVERSED.code ? REVERSED : NORMAL;
+    }
 }
@@ -0,0 +1,9 @@
+package src.db;
+
+/**
+ * the coordination row shared by all servers
+ *
+ * @param version number of writes made to the collection so far
+ */
+public record CollectionVersion(long version, CollectionState state) {
+}
@@ -25,6 +25,8 @@ public class ConnectionContainer {
         config.setMinimumIdle(5);
         config.setConnectionTimeout(10000);
         config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        // batched inserts are sent as multi-row inserts
+        config.addDataSourceProperty("reWriteBatchedInserts", "true");
         ds = new HikariDataSource(config);
     }
 }
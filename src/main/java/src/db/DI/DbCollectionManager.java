@@ -1,15 +1,18 @@
 package src.db.DI;
 
-import java.sql.SQLException;
 import java.util.List;
+import java.util.Optional;
 
 public interface DbCollectionManager<TEnt> {
     boolean insert(TEnt entity);
     boolean update(TEnt entity);
     boolean delete(TEnt id);
+    boolean insertAll(List<TEnt> entities);
+    boolean deleteAll(List<TEnt> entities);
     List<TEnt> load();
-    boolean isThisLastServerToTouchDB(int port);
-    void markThatThisServerHasMadeChangesToDb();
-    void markReversedCollection();
+    Optional<TEnt> load(long id);
+    /** @return order direction the collection has after the switch, empty if it could not be switched */
+    Optional<Boolean> markReversedCollection();
     Integer getNextId(String seqName);
+    List<Integer> getNextIds(String sequenceName, int count);
 }
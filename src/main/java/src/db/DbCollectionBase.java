@@ -4,60 +4,164 @@ import org.slf4j.Logger;
 import src.container.SettingsContainer;
 import src.loggerUtils.LoggerManager;
 
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 public class DbCollectionBase {
 
     protected final Logger logger;
     protected String toExecute;
+    // versions the transaction of the current thread has logged, reported to the change feed once it commits
+    private static final ThreadLocal<long[]> loggedVersions = new ThreadLocal<>();
+    private ChangeFeed changeFeed;
 
     public DbCollectionBase() {
         this.logger = LoggerManager.getLogger(ProductCollectionInDbManager.class);
     }
 
+    @FunctionalInterface
+    protected interface Transaction<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    /**
+     * the feed is told about the versions of the changes this server commits, so it does not read them back
+     */
+    public void setChangeFeed(ChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    /**
+     * runs the work on one connection in one transaction, rolls back if it throws
+     */
+    protected <T> T inTransaction(Transaction<T> work) throws SQLException {
+        try (var connection = ConnectionContainer.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                var result = work.run(connection);
+                connection.commit();
+                var versions = loggedVersions.get();
+                if (versions != null && changeFeed != null)
+                    changeFeed.skipOwnChanges(versions[0], versions[1]);
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                loggedVersions.remove();
+            }
+        }
+    }
+
+    /**
+     * bumps the collection version and appends the change to the change log under that version,
+     * must be the last statement of the transaction.
+     * The version row stays locked until commit, so versions become visible to other servers in increasing order
+     */
+    protected long logChange(Connection connection, ChangeEntity entity, ChangeOperation operation, long entityId) throws SQLException {
+        return logChanges(connection, entity, operation, List.of(entityId));
+    }
+
+    /**
+     * same as {@link #logChange} for many entities, the version moves by their count and the log rows are sent as one batch
+     */
+    protected long logChanges(Connection connection, ChangeEntity entity, ChangeOperation operation, List<Long> entityIds) throws SQLException {
+        var localPort = SettingsContainer.getSettings().localPort;
+        try (var stVersion = connection.prepareStatement(bumpVersion);
+             var stLog = connection.prepareStatement(insertChange)) {
+            stVersion.setInt(1, entityIds.size());
+            long version;
+            try (var rows = stVersion.executeQuery()) {
+                rows.next();
+                version = rows.getLong(1);
+            }
+            var changeId = version - entityIds.size();
+            loggedVersions.set(new long[]{changeId, version});
+            for (var entityId : entityIds) {
+                stLog.setLong(1, ++changeId);
+                stLog.setInt(2, entity.code);
+                stLog.setInt(3, operation.code);
+                stLog.setLong(4, entityId);
+                stLog.setInt(5, localPort);
+                stLog.setObject(6, ServerId.value);
+                stLog.addBatch();
+            }
+            stLog.executeBatch();
+            return version;
+        }
+    }
+
+    /**
+     * @return the coordination row, null if it has not been created yet
+     */
+    public static CollectionVersion readVersion(Connection connection) throws SQLException {
+        try (var st = connection.createStatement();
+             var rows = st.executeQuery("select version, reversed from collectionState where id = 1")) {
+            if (!rows.next())
+                return null;
+            return new CollectionVersion(rows.getLong("version"), CollectionState.fromCode(rows.getInt("reversed")));
+        }
+    }
+
     private void execute(String query) {
-        try (var st = ConnectionContainer.getConnection().createStatement()) {
+        try (var connection = ConnectionContainer.getConnection();
+             var st = connection.createStatement()) {
             st.executeUpdate(query);
         } catch (Exception e) {
             logger.error(e.getMessage());
         }
     }
 
-    public boolean isThisLastServerToTouchDB(int port) {
-        var query = "select data from internalDataHistory order by id desc limit 1";
-        try (var st = ConnectionContainer.getConnection().createStatement()) {
-            try (var resSet = st.executeQuery(query)) {
-                resSet.next();
-                var lastServerPort = resSet.getInt("data");
-                return lastServerPort == SettingsContainer.getSettings().localPort;
+    /**
+     * takes count values of the sequence in one round trip
+     */
+    public List<Integer> getNextIds(String sequenceName, int count) {
+        var result = new ArrayList<Integer>(count);
+        if (count == 0)
+            return result;
+        try (var connection = ConnectionContainer.getConnection();
+             var st = connection.prepareStatement("select nextval(cast(? as regclass)) from generate_series(1, ?)")) {
+            st.setString(1, sequenceName);
+            st.setInt(2, count);
+            try (var res = st.executeQuery()) {
+                while (res.next())
+                    result.add(res.getInt(1));
             }
-        } catch (Exception e) {
-            logger.error(e.getMessage());
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
         }
-        return true;
+        return result;
     }
 
-    public void markReversedCollection() {
-        var query = "select * from " + tableHistoryName + " where id = 1";
-        var updateQuery = "update " + tableHistoryName + " set data = ? where id = 1";
-        try (var st = ConnectionContainer.getConnection().createStatement()) {
-            try (var resSet = st.executeQuery(query)) {
-                resSet.next();
-                var reversedOrNot = resSet.getInt("data");
-                reversedOrNot = (reversedOrNot+1) % 2;
-                try (var stInsert = ConnectionContainer.getConnection().prepareStatement(updateQuery)) {
-                    stInsert.setInt(1, reversedOrNot);
-                    stInsert.executeUpdate();
+    /**
+     * flips the order direction stored in the version row,
+     * the change log row carries the resulting direction so applying it twice does no harm
+     */
+    public Optional<Boolean> markReversedCollection() {
+        var updateQuery = "update collectionState set reversed = (reversed + 1) % 2 where id = 1 returning reversed";
+        try {
+            return Optional.of(inTransaction(connection -> {
+                int reversed;
+                try (var st = connection.createStatement();
+                     var rows = st.executeQuery(updateQuery)) {
+                    rows.next();
+                    reversed = rows.getInt(1);
                 }
-            }
+                logChange(connection, ChangeEntity.COLLECTION, ChangeOperation.REVERSE, reversed);
+                return reversed == CollectionState.REVERSED.code;
+            }));
         } catch (Exception e) {
             logger.error(e.getMessage());
         }
-
+        return Optional.empty();
     }
 
     public Integer getNextId(String seqName){
-        try (var st = ConnectionContainer.getConnection().createStatement()) {
+        try (var connection = ConnectionContainer.getConnection();
+             var st = connection.createStatement()) {
             try (var res = st.executeQuery(seqName)) {
                 res.next();
                 return res.getInt(1);
@@ -67,17 +171,6 @@ public class DbCollectionBase {
         }
     }
 
-    public void markThatThisServerHasMadeChangesToDb() {
-        try {
-            var query = "insert into internalDataHistory(data) values(?)";
-            try (var stInsert = ConnectionContainer.getConnection().prepareStatement(query)) {
-                stInsert.setInt(1, SettingsContainer.getSettings().localPort);
-                stInsert.executeUpdate();
-            }
-        } catch (Exception e) {
-            logger.error(e.getMessage());
-        }
-    }
-
-    protected String tableHistoryName = "internalDataHistory";
+    private final String bumpVersion = "update collectionState set version = version + ? where id = 1 returning version";
+    private final String insertChange = "insert into changeLog(id, entity, operation, entityId, serverPort, serverId) values(?, ?, ?, ?, ?, ?)";
 }
@@ -0,0 +1,111 @@
+package src.db;
+
+import org.slf4j.Logger;
+import src.db.DI.DbCollectionManager;
+import src.loggerUtils.LoggerManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * hands out values of a db sequence from blocks reserved in one query.
+ * The next block is fetched in the background once a quarter of the current one is left.
+ * Ids of a block that was not used up before the server stops are skipped
+ */
+public class IdAllocator {
+
+    private static final class Block {
+        private final List<Integer> ids;
+        private final AtomicInteger next = new AtomicInteger();
+
+        private Block(List<Integer> ids) {
+            this.ids = ids;
+        }
+    }
+
+    private static final ExecutorService refillExecutor = Executors.newSingleThreadExecutor(r -> {
+        var thread = new Thread(r, "id-allocator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Logger logger = LoggerManager.getLogger(IdAllocator.class);
+    private final DbCollectionManager<?> db;
+    private final String sequenceName;
+    private final int blockSize;
+    private final int lowWater;
+    private volatile Block current;
+    private final AtomicReference<CompletableFuture<Block>> refill = new AtomicReference<>();
+
+    public IdAllocator(DbCollectionManager<?> db, String sequenceName, int blockSize) {
+        this.db = db;
+        this.sequenceName = sequenceName;
+        this.blockSize = Math.max(1, blockSize);
+        this.lowWater = Math.max(1, this.blockSize / 4);
+    }
+
+    public int next() {
+        for (; ; ) {
+            var block = current;
+            if (block != null) {
+                var i = block.next.getAndIncrement();
+                if (i < block.ids.size()) {
+                    if (i == block.ids.size() - lowWater)
+                        startRefill();
+                    return block.ids.get(i);
+                }
+            }
+            swapBlock(block);
+        }
+    }
+
+    /**
+     * counts bigger than a block are taken from the db directly
+     */
+    public List<Integer> next(int count) {
+        if (count >= blockSize)
+            return db.getNextIds(sequenceName, count);
+        var result = new ArrayList<Integer>(count);
+        for (var i = 0; i < count; i++)
+            result.add(next());
+        return result;
+    }
+
+    private synchronized void swapBlock(Block exhausted) {
+        // another thread has already replaced it
+        if (current != exhausted)
+            return;
+        var pending = refill.getAndSet(null);
+        Block block = null;
+        if (pending != null) {
+            try {
+                block = pending.join();
+            } catch (RuntimeException e) {
+                logger.error(e.getMessage());
+            }
+        }
+        current = block != null ? block : fetch();
+    }
+
+    private void startRefill() {
+        var future = new CompletableFuture<Block>();
+        if (!refill.compareAndSet(null, future))
+            return;
+        refillExecutor.execute(() -> {
+            try {
+                future.complete(fetch());
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+    }
+
+    private Block fetch() {
+        return new Block(db.getNextIds(sequenceName, blockSize));
+    }
+}
@@ -1,108 +1,122 @@
 package src.db;
 
+import src.Repositories.DI.UserRepo;
 import src.container.SettingsContainer;
 import src.db.DI.DbCollectionManager;
 import src.models.*;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.SQLType;
 import java.sql.Timestamp;
 import java.sql.Types;
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 public class ProductCollectionInDbManager extends DbCollectionBase implements DbCollectionManager<Product> {
 
-    public ProductCollectionInDbManager() {
+    // owners of the products are taken from the user directory, so users have to be loaded first
+    private final UserRepo users;
+    private volatile CollectionVersion loadedVersion = new CollectionVersion(0, CollectionState.NORMAL);
+
+    public ProductCollectionInDbManager(UserRepo users) {
+        this.users = users;
     }
 
     @Override
     public boolean insert(Product product) {
+        return insertAll(List.of(product));
+    }
+
+    /**
+     * inserts all products in one transaction, the statements of each table are sent as one batch
+     */
+    @Override
+    public boolean insertAll(List<Product> products) {
+        if (products.isEmpty())
+            return true;
         try {
-            var connection = ConnectionContainer.getConnection();
-
-            String insertIntoCoordinates = "insert into Coordinates values(?, ?, ?)";
-            String insertIntoOrganizations = "insert into Organizations values(?, ?, ?, ?)";
-            String insertIntoProducts = "insert into Products" +
-                    " values(?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-            try (var stCoor = connection.prepareStatement(insertIntoCoordinates);
-                 var stOrg = connection.prepareStatement(insertIntoOrganizations);
-                 var stProd = connection.prepareStatement(insertIntoProducts)) {
-                stCoor.setInt(1, product.getCoordinates().getId());
-                stCoor.setDouble(2, product.getCoordinates().getX());
-                stCoor.setFloat(3, product.getCoordinates().getY());
-                stCoor.executeUpdate();
-                int id;
-                if (product.getManufacturer() != null) {
-                    stOrg.setLong(1, product.getManufacturer().getId());
-                    stOrg.setString(2, product.getManufacturer().getName());
-                    stOrg.setInt(3, product.getManufacturer().getAnnualTurnover());
-                    stOrg.setInt(4, product.getManufacturer().getOrganizationType().ordinal());
-                    stOrg.executeUpdate();
-                }
+            return inTransaction(connection -> {
+                try (var stCoor = connection.prepareStatement(insertIntoCoordinates);
+                     var stOrg = connection.prepareStatement(insertIntoOrganizations);
+                     var stProd = connection.prepareStatement(insertIntoProducts)) {
+                    for (var product : products) {
+                        stCoor.setInt(1, product.getCoordinates().getId());
+                        stCoor.setDouble(2, product.getCoordinates().getX());
+                        stCoor.setFloat(3, product.getCoordinates().getY());
+                        stCoor.addBatch();
+                        if (product.getManufacturer() != null) {
+                            stOrg.setLong(1, product.getManufacturer().getId());
+                            stOrg.setString(2, product.getManufacturer().getName());
+                            stOrg.setInt(3, product.getManufacturer().getAnnualTurnover());
+                            stOrg.setInt(4, product.getManufacturer().getOrganizationType().ordinal());
+                            stOrg.addBatch();
+                        }
 
-                stProd.setLong(1, product.getId());
-                stProd.setString(2, product.getName());
-                stProd.setInt(3, product.getCoordinates().getId());
-                stProd.setTimestamp(4, Timestamp.valueOf(product.getCreationDate()));
-                stProd.setFloat(5, product.getPrice());
-                stProd.setDouble(6, product.getManufactureCost());
-                stProd.setInt(7, product.getUnitOfMeasure().ordinal());
-                if (product.getManufacturer() == null)
-                    stProd.setNull(8, java.sql.Types.INTEGER);
-                else
-                    stProd.setInt(8, product.getManufacturer().getId().intValue());
-                stProd.setInt(9, product.getUser().getId());
-                stProd.executeUpdate();
-            } catch (Exception e) {
-                logger.error(e.getMessage());
-            }
-            return false;
-        } catch (SQLException e) {
+                        stProd.setLong(1, product.getId());
+                        stProd.setString(2, product.getName());
+                        stProd.setInt(3, product.getCoordinates().getId());
+                        stProd.setTimestamp(4, Timestamp.valueOf(product.getCreationDate()));
+                        stProd.setFloat(5, product.getPrice());
+                        stProd.setDouble(6, product.getManufactureCost());
+                        stProd.setInt(7, product.getUnitOfMeasure().ordinal());
+                        if (product.getManufacturer() == null)
+                            stProd.setNull(8, java.sql.Types.INTEGER);
+                        else
+                            stProd.setInt(8, product.getManufacturer().getId().intValue());
+                        stProd.setInt(9, product.getUser().getId());
+                        stProd.addBatch();
+                    }
+                    stCoor.executeBatch();
+                    stOrg.executeBatch();
+                    stProd.executeBatch();
+                }
+                logChanges(connection, ChangeEntity.PRODUCT, ChangeOperation.INSERT, products.stream().map(Product::getId).toList());
+                return true;
+            });
+        } catch (Exception e) {
             logger.error(e.getMessage());
         }
-        return true;
+        return false;
     }
 
     @Override
     public boolean update(Product product) {
         try {
-            var connection = ConnectionContainer.getConnection();
-            try (var stCoor = connection.prepareStatement(updateCoordinates);
-                 var stOrg = connection.prepareStatement(updateOrganization);
-                 var stProd = connection.prepareStatement(updateProduct)) {
-                stCoor.setDouble(1, product.getCoordinates().getX());
-                stCoor.setFloat(2, product.getCoordinates().getY());
-                stCoor.setInt(3, product.getCoordinates().getId());
-                stCoor.executeUpdate();
-
-                if (product.getManufacturer() != null) {
-                    stOrg.setString(1, product.getManufacturer().getName());
-                    stOrg.setInt(2, product.getManufacturer().getAnnualTurnover());
-                    stOrg.setInt(3, product.getManufacturer().getOrganizationType().ordinal());
-                    stOrg.setLong(4, product.getManufacturer().getId());
-                    stOrg.executeUpdate();
-                }
+            return inTransaction(connection -> {
+                try (var stCoor = connection.prepareStatement(updateCoordinates);
+                     var stOrg = connection.prepareStatement(updateOrganization);
+                     var stProd = connection.prepareStatement(updateProduct)) {
+                    stCoor.setDouble(1, product.getCoordinates().getX());
+                    stCoor.setFloat(2, product.getCoordinates().getY());
+                    stCoor.setInt(3, product.getCoordinates().getId());
+                    stCoor.executeUpdate();
+
+                    if (product.getManufacturer() != null) {
+                        stOrg.setString(1, product.getManufacturer().getName());
+                        stOrg.setInt(2, product.getManufacturer().getAnnualTurnover());
+                        stOrg.setInt(3, product.getManufacturer().getOrganizationType().ordinal());
+                        stOrg.setLong(4, product.getManufacturer().getId());
+                        stOrg.executeUpdate();
+                    }
 
-                stProd.setString(1, product.getName());
-                stProd.setFloat(2, product.getPrice());
-                stProd.setDouble(3, product.getManufactureCost());
-                stProd.setInt(4, product.getUnitOfMeasure().ordinal());
-                stProd.setInt(5, product.getUser().getId());
-                if (product.getManufacturer() == null)
-                    stProd.setNull(6, Types.INTEGER);
-                else
-                    stProd.setInt(6, product.getManufacturer().getId().intValue());
-                stProd.setLong(7, product.getId());
-
-                stProd.executeUpdate();
+                    stProd.setString(1, product.getName());
+                    stProd.setFloat(2, product.getPrice());
+                    stProd.setDouble(3, product.getManufactureCost());
+                    stProd.setInt(4, product.getUnitOfMeasure().ordinal());
+                    stProd.setInt(5, product.getUser().getId());
+                    if (product.getManufacturer() == null)
+                        stProd.setNull(6, Types.INTEGER);
+                    else
+                        stProd.setInt(6, product.getManufacturer().getId().intValue());
+                    stProd.setLong(7, product.getId());
+                    stProd.executeUpdate();
+                }
+                logChange(connection, ChangeEntity.PRODUCT, ChangeOperation.UPDATE, product.getId());
                 return true;
-            } catch (Exception e) {
-                logger.error(e.getMessage());
-            }
-        } catch (SQLException e) {
+            });
+        } catch (Exception e) {
             logger.error(e.getMessage());
         }
         return false;
@@ -110,27 +124,42 @@ public class ProductCollectionInDbManager extends DbCollectionBase implements Db
 
     @Override
     public boolean delete(Product product) {
-        try {
-            var connection = ConnectionContainer.getConnection();
-            try (var stCoor = connection.prepareStatement(deleteCoordinates);
-                 var stOrg = connection.prepareStatement(deleteOrganization);
-                 var stProd = connection.prepareStatement(deleteProduct)) {
-                stProd.setLong(1, product.getId());
-                stProd.executeUpdate();
+        return deleteAll(List.of(product));
+    }
 
-                stCoor.setInt(1, product.getCoordinates().getId());
-                stCoor.executeUpdate();
+    /**
+     * deletes all products in one transaction, the statements of each table are sent as one batch
+     */
+    @Override
+    public boolean deleteAll(List<Product> products) {
+        if (products.isEmpty())
+            return true;
+        try {
+            return inTransaction(connection -> {
+                try (var stCoor = connection.prepareStatement(deleteCoordinates);
+                     var stOrg = connection.prepareStatement(deleteOrganization);
+                     var stProd = connection.prepareStatement(deleteProduct)) {
+                    for (var product : products) {
+                        stProd.setLong(1, product.getId());
+                        stProd.addBatch();
 
-                if (product.getManufacturer() == null)
-                    return true;
-                stOrg.setLong(1, product.getManufacturer().getId());
-                stOrg.executeUpdate();
+                        stCoor.setInt(1, product.getCoordinates().getId());
+                        stCoor.addBatch();
 
+                        if (product.getManufacturer() != null) {
+                            stOrg.setLong(1, product.getManufacturer().getId());
+                            stOrg.addBatch();
+                        }
+                    }
+                    // products reference the other two tables
+                    stProd.executeBatch();
+                    stCoor.executeBatch();
+                    stOrg.executeBatch();
+                }
+                logChanges(connection, ChangeEntity.PRODUCT, ChangeOperation.DELETE, products.stream().map(Product::getId).toList());
                 return true;
-            } catch (Exception e) {
-                logger.error(e.getMessage());
-            }
-        } catch (SQLException e) {
+            });
+        } catch (Exception e) {
             logger.error(e.getMessage());
         }
         return false;
@@ -138,90 +167,86 @@ public class ProductCollectionInDbManager extends DbCollectionBase implements Db
 
     @Override
     public List<Product> load() {
-        try {
-            var connection = ConnectionContainer.getConnection();
-            var selectSt = "select * from ";
-            var result = new LinkedList<Product>();
-            try {
-                try (var stPr = connection.prepareStatement(selectSt + "Products");
-                     var stOrg = connection.prepareStatement(selectSt + "Organizations where id = ?");
-                     var stUser = connection.prepareStatement(selectSt + "users where id = ?");
-                     var stCoor = connection.prepareStatement(selectSt + "Coordinates where id = ?")) {
-                    try (var products = stPr.executeQuery()) {
-                        while (products.next()) {
-                            var id = Long.parseLong(products.getString("id"));
-                            var name = products.getString("name");
-                            var creationDate = products.getTimestamp("creationDate");
-                            var price = products.getFloat("price");
-                            var manufactureCost = products.getDouble("manufactureCost");
-                            var unitOfMeasure = products.getInt("unitOfMeasure");
-                            var coordinatesId = products.getInt("coordinates");
-                            var organizationId = products.getInt("organization");
-                            var userId = products.getInt("userId");
-                            Coordinates coordinate = null;
-                            Organization organization = null;
-                            User user = null;
-
-                            if (coordinatesId != 0) {
-                                stCoor.setInt(1, coordinatesId);
-                                try (var coordinates = stCoor.executeQuery()) {
-                                    coordinates.next();
-                                    var coorid = Integer.parseInt(coordinates.getString("id"));
-                                    var x = Double.valueOf(coordinates.getString("x"));
-                                    var y = Float.valueOf(coordinates.getString("y"));
-                                    coordinate = new Coordinates(coorid, x, y);
-                                }
-                            }
-                            if (organizationId != 0) {
-                                stOrg.setInt(1, organizationId);
-                                try (var organizations = stOrg.executeQuery()) {
-                                    organizations.next();
-                                    var coorid = Long.parseLong(organizations.getString("id"));
-                                    var orgname = organizations.getString("name");
-                                    var annualTurnover = Integer.valueOf(organizations.getString("annualTurnover"));
-                                    var organizationType = Integer.parseInt(organizations.getString("organizationType"));
-                                    organization = new Organization(coorid, orgname, annualTurnover, OrganizationType.values()[organizationType]);
-                                }
-                            }
-                            if (userId != 0) {
-                                stUser.setInt(1, userId);
-                                var rows = stUser.executeQuery();
-                                while (rows.next()) {
-                                    var userid = Integer.parseInt(rows.getString("id"));
-                                    var username = rows.getString("name");
-                                    var password = rows.getString("password");
-                                    user = new User(userid, password, username);
-                                }
-                            }
-                            var prod = new Product(id, coordinate, creationDate.toLocalDateTime(), price, manufactureCost, UnitOfMeasure.values()[unitOfMeasure],
-                                    name, organization, user);
-                            result.add(prod);
-                        }
-                    } catch (SQLException e) {
-                        logger.error(e.getMessage());
-                    }
-                    var queryWasReversedOrNot = "select * from " + tableHistoryName.toLowerCase() + " where id = 1";
-                    try (var st = ConnectionContainer.getConnection().createStatement()) {
-                        try (var wasReversedOrNot = st.executeQuery(queryWasReversedOrNot)) {
-                            wasReversedOrNot.next();
-                            var state = wasReversedOrNot.getInt("data");
-                            if (CollectionState.values()[state] == CollectionState.REVERSED)
-                                Collections.reverse(result);
-                        }
-                    }
-                    return Collections.synchronizedList(result);
-                } catch (SQLException e) {
-                    logger.error(e.getMessage());
+        var result = new ArrayList<Product>();
+        try (var connection = ConnectionContainer.getConnection()) {
+            // one snapshot for the products and the change log position they correspond to
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            // the driver only streams rows with a fetch size inside a transaction
+            connection.setAutoCommit(false);
+            var version = readVersion(connection);
+            if (version != null)
+                loadedVersion = version;
+            try (var st = connection.prepareStatement(selectProducts + " order by p.id")) {
+                st.setFetchSize(SettingsContainer.getSettings().dbFetchSize);
+                try (var rows = st.executeQuery()) {
+                    while (rows.next())
+                        result.add(readProduct(rows));
                 }
-            } catch (NumberFormatException e) {
-                logger.error(e.getMessage());
             }
+            connection.commit();
+            return result;
         } catch (SQLException e) {
             logger.error(e.getMessage());
         }
         return null;
     }
 
+    @Override
+    public Optional<Product> load(long id) {
+        try (var connection = ConnectionContainer.getConnection();
+             var st = connection.prepareStatement(selectProducts + " where p.id = ?")) {
+            st.setLong(1, id);
+            try (var rows = st.executeQuery()) {
+                if (rows.next())
+                    return Optional.of(readProduct(rows));
+            }
+        } catch (SQLException e) {
+            logger.error(e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return version of the collection the last {@link #load()} corresponds to,
+     * {@link #load()} returns products by id and the order direction is in the version
+     */
+    public CollectionVersion getLoadedVersion() {
+        return loadedVersion;
+    }
+
+    private Product readProduct(ResultSet rows) throws SQLException {
+        Coordinates coordinate = null;
+        var coordinatesId = rows.getInt("coord_id");
+        if (!rows.wasNull())
+            coordinate = new Coordinates(coordinatesId, rows.getDouble("x"), rows.getFloat("y"));
+
+        Organization organization = null;
+        var organizationId = rows.getLong("org_id");
+        if (!rows.wasNull())
+            organization = new Organization(organizationId, rows.getString("org_name"), rows.getInt("annualturnover"),
+                    OrganizationType.values()[rows.getInt("organizationtype")]);
+
+        User user = null;
+        var userId = rows.getInt("userid");
+        if (!rows.wasNull())
+            user = users.getUser(userId).orElse(null);
+
+        return new Product(rows.getLong("id"), coordinate, rows.getTimestamp("creationdate").toLocalDateTime(),
+                rows.getFloat("price"), rows.getDouble("manufacturecost"),
+                UnitOfMeasure.values()[rows.getInt("unitofmeasure")], rows.getString("name"), organization, user);
+    }
+
+    private final String selectProducts = "select p.id, p.name, p.creationDate, p.price, p.manufactureCost, p.unitOfMeasure, p.userId," +
+            " c.id as coord_id, c.x, c.y," +
+            " o.id as org_id, o.name as org_name, o.annualTurnover, o.organizationType" +
+            " from Products p" +
+            " left join Coordinates c on c.id = p.coordinates" +
+            " left join Organizations o on o.id = p.organization";
+
+    private final String insertIntoCoordinates = "insert into Coordinates values(?, ?, ?)";
+    private final String insertIntoOrganizations = "insert into Organizations values(?, ?, ?, ?)";
+    private final String insertIntoProducts = "insert into Products values(?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
     private final String updateCoordinates = "update Coordinates set x = ?, y = ? where id = ?";
     private final String updateOrganization = "update Organizations set name = ?, annualTurnover = ?, organizationType = ? where id = ?";
     private final String updateProduct = "update Products set name = ?, price = ?, manufactureCost = ?, unitOfMeasure = ?, userId = ?, organization = ? where id = ?";
@@ -5,5 +5,9 @@ public class SeqNames {
     public final static String coordSeq = "SELECT nextval('coordinates_id_seq') as num;";
     public final static String userSeq = "SELECT nextval('users_id_seq') as num;";
     public final static String orgSeq = "SELECT nextval('organizations_id_seq') as num;";
-    public final static String internalSeq = "SELECT nextval('internaldatahistory_id_seq') as num;";
+
+    // sequence names for taking many ids at once
+    public final static String productSeqName = "products_id_seq";
+    public final static String coordSeqName = "coordinates_id_seq";
+    public final static String orgSeqName = "organizations_id_seq";
 }
@@ -0,0 +1,10 @@
+package src.db;
+
+import java.util.UUID;
+
+/**
+ * id of this server process in the change log, chosen at startup. Ports are not unique across hosts
+ */
+public class ServerId {
+    public final static UUID value = UUID.randomUUID();
+}
@@ -2,6 +2,9 @@ package src.db;
 
 import src.loggerUtils.LoggerManager;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+
 public class TableManager {
     private static final String productCreationQ = "create table if not exists Coordinates(\n" +
             "\tid serial primary key,\n" +
@@ -35,27 +38,61 @@ public class TableManager {
             "\trole int not null" +
             ")";
 
-    private static final String baseTableCreatingQ = "create table if not exists internalDataHistory(\n" +
-            "\tid serial primary key,\n" +
-            "\tdata int not null\n" +
+    // single row, every write bumps the version in its transaction, the id of its change log row is that version
+    private static final String collectionStateCreatingQ = "create table if not exists collectionState(\n" +
+            "\tid int primary key check (id = 1),\n" +
+            "\tversion bigint not null,\n" +
+            // not used any more, servers of the previous release still write it
+            "\tlastWriter int not null default 0,\n" +
+            "\treversed int not null\n" +
+            ")";
+
+    private static final String collectionStateSeedQ = "insert into collectionState" +
+            "(id, version, reversed) values(1, (select coalesce(max(id), 0) from changeLog), 0) on conflict (id) do nothing";
+
+    // other servers apply the rows after the version they have seen, a server skips the rows with its own serverId
+    private static final String changeLogCreatingQ = "create table if not exists changeLog(\n" +
+            "\tid bigserial primary key,\n" +
+            "\tentity int not null,\n" +
+            "\toperation int not null,\n" +
+            "\tentityId bigint not null,\n" +
+            "\tserverPort int not null,\n" +
+            "\tserverId uuid\n" +
             ")";
 
+    private static final String changeLogServerIdQ = "alter table changeLog add column if not exists serverId uuid";
+
     public static void ensureTablesExist() {
-        try {
-            var connection = ConnectionContainer.getConnection();
+        try (var connection = ConnectionContainer.getConnection()) {
             try (var usersSt = connection.createStatement();
-                 var internalSt = connection.createStatement();
-                 var prodSt = connection.createStatement()) {
+                 var prodSt = connection.createStatement();
+                 var changeLogSt = connection.createStatement();
+                 var stateSt = connection.createStatement()) {
                 usersSt.executeUpdate(userCreatingQ);
                 prodSt.executeUpdate(productCreationQ);
-                internalSt.executeUpdate(baseTableCreatingQ);
-            }
-            var scrToEx = "insert into internalDataHistory(data) values(0)";
-            try (var st = connection.createStatement()){
-                st.executeUpdate(scrToEx);
+                changeLogSt.executeUpdate(changeLogCreatingQ);
+                changeLogSt.executeUpdate(changeLogServerIdQ);
+                stateSt.executeUpdate(collectionStateCreatingQ);
+                if (stateSt.executeUpdate(collectionStateSeedQ) > 0)
+                    migrateInternalDataHistory(connection);
             }
         } catch (Exception exception) {
             LoggerManager.getLogger(ProductCollectionInDbManager.class).error(exception.getMessage());
         }
     }
+
+    /**
+     * older servers kept the reversed flag in row 1 of internalDataHistory and appended a row per reload.
+     * The table is kept while servers of that release may still run against the db
+     */
+    private static void migrateInternalDataHistory(Connection connection) throws SQLException {
+        try (var tables = connection.getMetaData().getTables(null, null, "internaldatahistory", null)) {
+            if (!tables.next())
+                return;
+        }
+        try (var st = connection.createStatement()) {
+            st.executeUpdate("update collectionState set reversed =" +
+                    " coalesce((select data from internalDataHistory where id = 1), 0) where id = 1");
+        }
+    }
 }
@@ -5,10 +5,12 @@ import src.db.DI.DbCollectionManager;
 import src.loggerUtils.LoggerManager;
 import src.models.Role;
 import src.models.User;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Optional;
 
 public class UserCollectionInDbManager extends DbCollectionBase implements DbCollectionManager<User> {
     private final Logger logger;
@@ -18,55 +20,78 @@ public class UserCollectionInDbManager extends DbCollectionBase implements DbCol
     }
 
     public boolean insert(User user) {
-        try{
-            var connection =  ConnectionContainer.getConnection();
+        return insertAll(List.of(user));
+    }
+
+    public boolean insertAll(List<User> users) {
+        if (users.isEmpty())
+            return true;
+        for (var user : users) {
             if(user.getPassword().length() < user.getName().length()){
                 var pws = user.getPassword();
                 user.setPassword(user.getName());
                 user.setName(pws);
             }
-            try (var stUser = connection.prepareStatement(insertUser)) {
-                stUser.setInt(1, user.getId());
-                stUser.setString(2, user.getPassword());
-                stUser.setString(3, user.getName());
-                stUser.setInt(4, user.role.ordinal());
-                stUser.executeUpdate();
-                return true;
-            } catch (Exception e) {
-                logger.error(e.getMessage());
-            }
         }
-        catch (SQLException e){
+        try {
+            return inTransaction(connection -> {
+                try (var stUser = connection.prepareStatement(insertUser)) {
+                    for (var user : users) {
+                        stUser.setInt(1, user.getId());
+                        stUser.setString(2, user.getPassword());
+                        stUser.setString(3, user.getName());
+                        stUser.setInt(4, user.role.ordinal());
+                        stUser.addBatch();
+                    }
+                    stUser.executeBatch();
+                }
+                logChanges(connection, ChangeEntity.USER, ChangeOperation.INSERT, users.stream().map(u -> (long) u.getId()).toList());
+                return true;
+            });
+        } catch (Exception e) {
             logger.error(e.getMessage());
         }
         return false;
     }
 
     public boolean update(User user) {
-        try{
-            var connection = ConnectionContainer.getConnection();
-            try (var stUser = connection.prepareStatement(updateUser)) {
-                stUser.setString(1, user.getPassword());
-                stUser.setString(2, user.getName());
-                stUser.setInt(4, user.getId());
-                stUser.setInt(3, user.role.ordinal());
-                stUser.executeUpdate();
+        try {
+            return inTransaction(connection -> {
+                try (var stUser = connection.prepareStatement(updateUser)) {
+                    stUser.setString(1, user.getPassword());
+                    stUser.setString(2, user.getName());
+                    stUser.setInt(4, user.getId());
+                    stUser.setInt(3, user.role.ordinal());
+                    stUser.executeUpdate();
+                }
+                logChange(connection, ChangeEntity.USER, ChangeOperation.UPDATE, user.getId());
                 return true;
-            } catch (Exception e) {
-                logger.error(e.getMessage());
-            }
-        }
-        catch (SQLException e){
+            });
+        } catch (Exception e) {
             logger.error(e.getMessage());
         }
         return false;
     }
 
     public boolean delete(User user) {
-        try (var stUser = ConnectionContainer.getConnection().prepareStatement(deleteUser)) {
-            stUser.setInt(1, user.getId());
-            stUser.executeUpdate();
+        return deleteAll(List.of(user));
+    }
+
+    public boolean deleteAll(List<User> users) {
+        if (users.isEmpty())
             return true;
+        try {
+            return inTransaction(connection -> {
+                try (var stUser = connection.prepareStatement(deleteUser)) {
+                    for (var user : users) {
+                        stUser.setInt(1, user.getId());
+                        stUser.addBatch();
+                    }
+                    stUser.executeBatch();
+                }
+                logChanges(connection, ChangeEntity.USER, ChangeOperation.DELETE, users.stream().map(u -> (long) u.getId()).toList());
+                return true;
+            });
         } catch (Exception e) {
             logger.error(e.getMessage());
         }
@@ -76,17 +101,11 @@ public class UserCollectionInDbManager extends DbCollectionBase implements DbCol
     public List<User> load() {
         var result = new LinkedList<User>();
         var query = "select * from Users";
-        try(var stUser = ConnectionContainer.getConnection().prepareStatement(query)) {
-            var rows = stUser.executeQuery();
-            while(rows.next()) {
-                var id = Integer.parseInt(rows.getString("id"));
-                var name = rows.getString("name");
-                var password = rows.getString("password");
-                var userRole = rows.getInt("role");
-                var user =new User(id, password, name);
-                user.role = Role.values()[userRole];
-                result.add(user);
-            }
+        try (var connection = ConnectionContainer.getConnection();
+             var stUser = connection.prepareStatement(query);
+             var rows = stUser.executeQuery()) {
+            while(rows.next())
+                result.add(readUser(rows));
         }
         catch (SQLException e) {
             logger.error(e.getMessage());
@@ -94,6 +113,27 @@ public class UserCollectionInDbManager extends DbCollectionBase implements DbCol
         return Collections.synchronizedList(result);
     }
 
+    public Optional<User> load(long id) {
+        try (var connection = ConnectionContainer.getConnection();
+             var stUser = connection.prepareStatement("select * from Users where id = ?")) {
+            stUser.setLong(1, id);
+            try (var rows = stUser.executeQuery()) {
+                if (rows.next())
+                    return Optional.of(readUser(rows));
+            }
+        }
+        catch (SQLException e) {
+            logger.error(e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    private User readUser(ResultSet rows) throws SQLException {
+        var user = new User(rows.getInt("id"), rows.getString("password"), rows.getString("name"));
+        user.role = Role.values()[rows.getInt("role")];
+        return user;
+    }
+
     //SELECT nextval('users_id_seq') as num;
 
     private String insertUser = "insert into Users values(?, ?, ?, ?)";
@@ -3,17 +3,22 @@ package src.interfaces;
 import org.apache.commons.lang3.tuple.Pair;
 import src.network.Request;
 import src.models.Role;
+import src.models.User;
 import src.utils.Argument;
 
 import java.util.List;
 
 
 public interface Command {
-    /** executes the command */
-    boolean execute(String[] args);
+    /** executes the command typed into a script line, args do not include the command name */
+    boolean execute(String[] args, User user);
     boolean execute(Request request);
     /** prints the command description */
     String getInfo();
     List<Pair<Argument, Integer>> getRequiredArguments();
     boolean isAllowedToExecute(Role role);
+    /** whether the command only reads the collection or changes it */
+    CommandKind getKind();
+    /** id of the product a {@link CommandKind#KEYED_WRITE} command changes */
+    long getLockKey(Request request);
 }
@@ -0,0 +1,13 @@
+package src.interfaces;
+
+/**
+ * how a command touches the collection, decides the lock it runs under
+ */
+public enum CommandKind {
+    // only reads, runs on a snapshot in parallel with everything else
+    READ,
+    // changes one product, runs in parallel with changes of other products
+    KEYED_WRITE,
+    // changes the collection, runs alone
+    WRITE
+}
@@ -4,9 +4,11 @@ import src.Repositories.DI.ProductRepo;
 import src.Repositories.DI.UserRepo;
 import src.converters.SerializationManager;
 import src.db.DI.DbCollectionManager;
+import src.db.IdAllocator;
 import src.models.Product;
 import src.models.Role;
 import src.models.User;
+import src.network.MessageType;
 import src.network.Request;
 import src.network_utils.SendingManager;
 import src.service.InputService;
@@ -14,15 +16,14 @@ import src.service.InputService;
 import java.nio.channels.SocketChannel;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
 
 
 public interface CommandManagerCustom {
     /** executes given command */
     void executeCommand(Request userInput);
     ProductRepo getProductsRepo();
-    /** executes given command */
-    void executeCommand(String userInput);
+    /** executes a command typed into a script line on behalf of the user */
+    void executeCommand(String userInput, User user);
     /** gets the history of executed src.commands */
     List<String> getCommandHistory();
     /** gets the info about each command */
@@ -34,10 +35,13 @@ public interface CommandManagerCustom {
     HashMap<String, List<String>> getExecuteScriptHandyMap();
     void setCurrentScriptBeingExecuted(String name);
     String getCurrentScriptBeingExecuted();
-    ExecutorService getExecutorService();
     InputService getInputService();
     LocalDateTime getInitializationTime();
     UserRepo getUsersRepo();
     DbCollectionManager<Product> getDbProductManager();
     DbCollectionManager<User> getDbUserManager();
+    /** allocator of the values of the sequence, e.g. SeqNames.productSeqName */
+    IdAllocator getIdAllocator(String sequenceName);
+    /** kind of the command the message is executed by, messages handled by the manager itself count as writes */
+    CommandKind getCommandKind(MessageType messageType);
 }
@@ -0,0 +1,134 @@
+package src.network_utils;
+
+import src.container.SettingsContainer;
+import src.converters.WireCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * State of one client connection, kept as the attachment of its SelectionKey
+ */
+public class ChannelContext {
+    private final SocketChannel channel;
+    private final ByteArrayOutputStream legacyBuffer = new ByteArrayOutputStream();
+    private final FrameDecoder frameDecoder = new FrameDecoder();
+    private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>();
+    private long queuedBytes;
+    // flush hands the waiting streams to the request executor once no more than that many bytes are queued, -1 - nobody waits
+    private long wakeUpAtBytes = -1;
+    private final List<Runnable> waitingStreams = new ArrayList<>();
+    private final Executor requestExecutor;
+    private SelectionKey key;
+    // codec of the last request, responses are encoded with it
+    private volatile WireCodec codec = WireCodec.JAVA;
+    private final SessionMailbox mailbox;
+
+    public ChannelContext(SocketChannel channel, Executor requestExecutor) {
+        this.channel = channel;
+        this.requestExecutor = requestExecutor;
+        this.mailbox = new SessionMailbox(requestExecutor, SettingsContainer.getSettings().pipelinedReadsPerSession);
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    public void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    /** reassembly buffer for the chunks of the legacy framing */
+    public ByteArrayOutputStream getLegacyBuffer() {
+        return legacyBuffer;
+    }
+
+    public FrameDecoder getFrameDecoder() {
+        return frameDecoder;
+    }
+
+    /** requests of the connection are executed through it in the order they came in */
+    public SessionMailbox getMailbox() {
+        return mailbox;
+    }
+
+    public WireCodec getCodec() {
+        return codec;
+    }
+
+    public void setCodec(WireCodec codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * queues the buffers of one message and asks the selector to wait for OP_WRITE.
+     * A message is always queued when nothing is pending, so one big response never gets rejected
+     *
+     * @return false if the client has more than highWaterMark bytes still not read
+     */
+    public synchronized boolean enqueue(List<ByteBuffer> buffers, long highWaterMark) {
+        if (queuedBytes > highWaterMark)
+            return false;
+        for (var buffer : buffers) {
+            outbound.add(buffer);
+            queuedBytes += buffer.remaining();
+        }
+        if (key.isValid()) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            key.selector().wakeup();
+        }
+        return true;
+    }
+
+    /**
+     * writes queued buffers until the socket buffer is full, called by the selector loop when OP_WRITE is ready
+     */
+    public synchronized void flush() throws IOException {
+        try {
+            while (!outbound.isEmpty()) {
+                var buffer = outbound.peek();
+                queuedBytes -= channel.write(buffer);
+                if (buffer.hasRemaining())
+                    return;
+                outbound.poll();
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        } finally {
+            // the next page is built while the socket still has the rest of the queue to send
+            if (queuedBytes <= wakeUpAtBytes) {
+                waitingStreams.forEach(requestExecutor::execute);
+                waitingStreams.clear();
+                wakeUpAtBytes = -1;
+            }
+        }
+    }
+
+    /**
+     * runs the action on the request executor once no more than the given number of bytes are queued,
+     * no thread waits for the client meanwhile. Actions of a closed connection are never run
+     *
+     * @return false if the connection is closed
+     */
+    public synchronized boolean whenQueuedBytesBelow(long bytes, Runnable action) {
+        if (!channel.isOpen())
+            return false;
+        if (queuedBytes <= bytes) {
+            requestExecutor.execute(action);
+            return true;
+        }
+        waitingStreams.add(action);
+        wakeUpAtBytes = Math.max(wakeUpAtBytes, bytes);
+        return true;
+    }
+
+    public synchronized long getQueuedBytes() {
+        return queuedBytes;
+    }
+}
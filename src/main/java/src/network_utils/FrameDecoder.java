@@ -0,0 +1,52 @@
+package src.network_utils;
+
+import src.network.FrameHeader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Reassembles length-prefixed frames of one connection.
+ * The header is read first, then the payload is read straight into an array of the announced size
+ */
+public class FrameDecoder {
+    private final ByteBuffer header = ByteBuffer.allocate(FrameHeader.SIZE);
+    private FrameHeader currentHeader;
+    private ByteBuffer payload;
+
+    /**
+     * reads everything available on the channel and passes every completed frame to the handler
+     *
+     * @return false if the client has closed the connection
+     */
+    public synchronized boolean read(SocketChannel channel, int port,
+                                     ReceivedRequestHandlerFuncInterface methodToCallOnFrameBeingRead) throws IOException {
+        while (true) {
+            if (currentHeader == null) {
+                var numRead = channel.read(header);
+                if (numRead == -1)
+                    return false;
+                if (header.hasRemaining())
+                    return true;
+                header.flip();
+                currentHeader = FrameHeader.readFrom(header);
+                header.clear();
+                payload = ByteBuffer.allocate(currentHeader.getLength());
+            }
+            if (payload.hasRemaining()) {
+                var numRead = channel.read(payload);
+                if (numRead == -1)
+                    return false;
+                if (payload.hasRemaining())
+                    return true;
+            }
+            var readResults = new ReadResults(channel, payload.array(), port);
+            readResults.requestId = currentHeader.getRequestId();
+            readResults.flags = currentHeader.getFlags();
+            currentHeader = null;
+            payload = null;
+            methodToCallOnFrameBeingRead.receivedRequestHandler(readResults);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package src.network_utils;
+
+import src.loggerUtils.LoggerManager;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * Selector loop owning a part of the client connections.
+ * All reads and writes of a connection are done on the thread of its loop, so they never overlap
+ */
+public class IoReactor implements Runnable {
+    private final Selector selector;
+    private final Queue<SocketChannel> channelsToRegister;
+    private final ReceivingManager receivingManager;
+    private final ReceivedRequestHandlerFuncInterface requestHandler;
+    private final Map<SocketChannel, ChannelContext> sessions;
+    private final Executor requestExecutor;
+
+    public IoReactor(ReceivingManager receivingManager,
+                     ReceivedRequestHandlerFuncInterface requestHandler,
+                     Map<SocketChannel, ChannelContext> sessions,
+                     Executor requestExecutor) throws IOException {
+        this.selector = Selector.open();
+        this.channelsToRegister = new ConcurrentLinkedQueue<>();
+        this.receivingManager = receivingManager;
+        this.requestHandler = requestHandler;
+        this.sessions = sessions;
+        this.requestExecutor = requestExecutor;
+    }
+
+    /** hands an accepted channel over to this loop, the registration itself is done by the loop thread */
+    public void register(SocketChannel channel) {
+        channelsToRegister.add(channel);
+        selector.wakeup();
+    }
+
+    public void close() throws IOException {
+        selector.close();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (selector.isOpen()) {
+                // blocking, wait for events
+                selector.select();
+                registerPendingChannels();
+                var keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    var key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isWritable()) write(key);
+                    if (key.isValid() && key.isReadable()) receivingManager.read(key, requestHandler);
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            LoggerManager.getLogger(IoReactor.class).info("selector loop stopped: " + e.getMessage());
+        }
+    }
+
+    private void registerPendingChannels() {
+        SocketChannel channel;
+        while ((channel = channelsToRegister.poll()) != null) {
+            try {
+                var context = new ChannelContext(channel, requestExecutor);
+                context.setKey(channel.register(selector, SelectionKey.OP_READ, context));
+                sessions.put(channel, context);
+            } catch (IOException e) {
+                LoggerManager.getLogger(IoReactor.class).error(e.getMessage());
+            }
+        }
+    }
+
+    private void write(SelectionKey key) {
+        var context = (ChannelContext) key.attachment();
+        try {
+            context.flush();
+        } catch (IOException e) {
+            LoggerManager.getLogger(IoReactor.class).error(e.getMessage());
+            sessions.remove(context.getChannel());
+            key.cancel();
+            try {
+                context.getChannel().close();
+            } catch (IOException e1) {
+                LoggerManager.getLogger(IoReactor.class).error(e1.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package src.network_utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Chunks of the legacy framing: data padded with zeros up to the chunk size, the port digits of the client
+ * and 1 if it is the last chunk of a message otherwise 0. The zeros at the end of a message are lost on the way
+ */
+class LegacyFraming {
+    // the receiving side always reads chunks of that size and takes the port as 5 digits
+    static final int CHUNK_SIZE = 1024;
+    private static final int PORT_DIGITS = 5;
+
+    static List<ByteBuffer> toChunks(byte[] data, int port, int packetSize) {
+        var digits = Integer.toString(port).chars().map(c -> c - '0').toArray();
+        data = cutTrailingZeros(data);
+        var dataPerChunk = packetSize - 1 - digits.length;
+        var chunksCount = (int) Math.ceil(data.length / (double) dataPerChunk);
+        var chunks = new ArrayList<ByteBuffer>(chunksCount);
+        int start = 0;
+        for (int i = 0; i < chunksCount; i++) {
+            var chunk = ByteBuffer.allocate(packetSize);
+            chunk.put(data, start, Math.min(dataPerChunk, data.length - start));
+            chunk.position(dataPerChunk);
+            for (var digit : digits) {
+                chunk.put((byte) digit);
+            }
+            chunk.put((byte) (i == chunksCount - 1 ? 1 : 0));
+            chunk.flip();
+            chunks.add(chunk);
+            start += dataPerChunk;
+        }
+        return chunks;
+    }
+
+    /**
+     * adds the data of a received chunk to the message
+     *
+     * @param chunk buffer of {@link #CHUNK_SIZE} bytes
+     * @return port of the client if it was the last chunk of the message, -1 otherwise
+     */
+    static int appendChunk(byte[] chunk, int numRead, ByteArrayOutputStream message) {
+        message.write(chunk, 0, chunk.length - PORT_DIGITS - 1);
+        if (chunk[numRead - 1] != 1)
+            return -1;
+        var port = 0;
+        for (int i = PORT_DIGITS; i > 0; i--) {
+            port = port * 10 + chunk[numRead - 1 - i];
+        }
+        return port;
+    }
+
+    static byte[] cutTrailingZeros(byte[] data) {
+        var end = data.length;
+        while (end > 0 && data[end - 1] == 0)
+            end--;
+        return end == data.length ? data : Arrays.copyOf(data, end);
+    }
+}
@@ -6,6 +6,8 @@ public class ReadResults {
     public SocketChannel socketChannel;
     public byte[] data;
     public int port;
+    public int requestId;
+    public byte flags;
 
     public ReadResults(SocketChannel socketChannel,
                        byte[] data,
@@ -1,93 +1,86 @@
 package src.network_utils;
 
+import src.container.SettingsContainer;
 import src.loggerUtils.LoggerManager;
+import src.network.FramingMode;
 
 import java.io.IOException;
+import java.io.StreamCorruptedException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
-import com.google.common.primitives.Bytes;
 
 import java.util.*;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 public class ReceivingManager {
 
-    private Set<SocketChannel> sessions;
-    private final HashMap<Integer, byte[]> receivedData;
-    private final Lock lock;
+    private Map<SocketChannel, ChannelContext> sessions;
+    private final FramingMode framingMode = SettingsContainer.getSettings().framing;
 
-    public ReceivingManager(ReentrantLock lock){
-        this.receivedData = new HashMap<>();
-        this.lock = lock;
-    }
-
-    public void setSessions(Set<SocketChannel> sessions){
+    public void setSessions(Map<SocketChannel, ChannelContext> sessions){
         this.sessions = sessions;
     }
     public void read(SelectionKey key, ReceivedRequestHandlerFuncInterface methodToCallOnRequestBeingDoneTransferring) {
-        SocketChannel channel = (SocketChannel) key.channel();
+        var context = (ChannelContext) key.attachment();
+        SocketChannel channel = context.getChannel();
         try {
-            ByteBuffer byteBuffer = ByteBuffer.allocate(1024);
-            int numRead = channel.read(byteBuffer);
-            if (numRead == -1) {
-                lock.lock();
-                try{
-                    this.sessions.remove(channel);
-                    LoggerManager.getLogger(TCPServer.class)
-                            .info("client " + channel.socket().getRemoteSocketAddress() + " disconnected");
-                    channel.close();
-                    key.cancel();
-                }
-                finally {
-                    lock.unlock();
-                }
-                return;
-            }
-            //being sent from server
-            var strB = new StringBuilder();
-            for(int i = 0; i < 5; i++){
-                strB.append(((Byte) byteBuffer.array()[numRead-2-i]));
-            }
-            lock.lock();
-            try{
-                var comingFromClientPort = Integer.parseInt(strB.reverse().toString());
-                if(!receivedData.containsKey(comingFromClientPort)){
-                    receivedData.put(comingFromClientPort, Arrays.copyOf(byteBuffer.array(), byteBuffer.array().length - 6));
-                }
-                else{
-                    var arr = receivedData.get(comingFromClientPort);
-                    receivedData.put(comingFromClientPort, Bytes.concat(arr, Arrays.copyOf(byteBuffer.array(), byteBuffer.array().length - 6)));
-                }
-                // четко
-                // reached the end of the object being sent
-                if(byteBuffer.array()[numRead-1] == 1){
-                    var readResults = new ReadResults(channel, receivedData.get(comingFromClientPort), comingFromClientPort);
-                    receivedData.remove(comingFromClientPort);
-                    methodToCallOnRequestBeingDoneTransferring.receivedRequestHandler(readResults);
-                    return;
-                }
-            }
-            finally {
-                lock.unlock();
-            }
+            if (framingMode == FramingMode.LENGTH_PREFIXED)
+                readFramed(key, context, methodToCallOnRequestBeingDoneTransferring);
+            else
+                readLegacy(key, context, methodToCallOnRequestBeingDoneTransferring);
         }
         catch (IOException e){
             LoggerManager.getLogger(TCPServer.class).error(e.getMessage());
-            // server has crashed, and we got isConnectionPending - true and isOpen - true as well
-            // and so we close the connection, because this connection is already closed by the server and create another one
-            if(Objects.equals(e.getMessage(), "Connection reset"))
-            {
-                try{
-                    Thread.sleep(3000);
-                    channel.close();
-                }
-                catch (Exception e1){
-                    LoggerManager.getLogger(TCPServer.class).error(e.getMessage());
-                }
+            // the connection is broken (e.g. "Connection reset"), it is closed right away
+            // without sleeping because this thread serves the other connections of the selector loop too
+            try{
+                closeSession(key, channel);
             }
+            catch (IOException e1){
+                LoggerManager.getLogger(TCPServer.class).error(e1.getMessage());
+            }
+        }
+    }
+
+    private void readFramed(SelectionKey key, ChannelContext context,
+                            ReceivedRequestHandlerFuncInterface methodToCallOnRequestBeingDoneTransferring) throws IOException {
+        var channel = context.getChannel();
+        try {
+            if (!context.getFrameDecoder().read(channel, channel.socket().getPort(), methodToCallOnRequestBeingDoneTransferring))
+                closeSession(key, channel);
+        }
+        catch (StreamCorruptedException e) {
+            LoggerManager.getLogger(TCPServer.class)
+                    .error("client " + channel.socket().getRemoteSocketAddress() + " sent a broken frame: " + e.getMessage());
+            closeSession(key, channel);
+        }
+    }
+
+    private void readLegacy(SelectionKey key, ChannelContext context,
+                            ReceivedRequestHandlerFuncInterface methodToCallOnRequestBeingDoneTransferring) throws IOException {
+        var channel = context.getChannel();
+        ByteBuffer byteBuffer = ByteBuffer.allocate(LegacyFraming.CHUNK_SIZE);
+        int numRead = channel.read(byteBuffer);
+        if (numRead == -1) {
+            closeSession(key, channel);
+            return;
+        }
+        var chunk = byteBuffer.array();
+        var receivedData = context.getLegacyBuffer();
+        var comingFromClientPort = LegacyFraming.appendChunk(chunk, numRead, receivedData);
+        // reached the end of the object being sent
+        if (comingFromClientPort != -1) {
+            var readResults = new ReadResults(channel, LegacyFraming.cutTrailingZeros(receivedData.toByteArray()), comingFromClientPort);
+            receivedData.reset();
+            methodToCallOnRequestBeingDoneTransferring.receivedRequestHandler(readResults);
         }
-        return;
+    }
+
+    private void closeSession(SelectionKey key, SocketChannel channel) throws IOException {
+        this.sessions.remove(channel);
+        LoggerManager.getLogger(TCPServer.class)
+                .info("client " + channel.socket().getRemoteSocketAddress() + " disconnected");
+        channel.close();
+        key.cancel();
     }
 }
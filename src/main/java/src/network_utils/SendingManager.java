@@ -1,73 +1,96 @@
 package src.network_utils;
 
-import com.google.common.primitives.Bytes;
 import src.container.SettingsContainer;
+import src.converters.SerializationManager;
+import src.converters.WireCodec;
 import src.loggerUtils.LoggerManager;
+import src.network.FrameHeader;
+import src.network.FramingMode;
+import src.network.Request;
+import src.network.Response;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
-import java.util.Arrays;
-import java.util.Objects;
+import java.util.List;
+import java.util.Map;
 
 public class SendingManager {
 
     private final int PACKET_SIZE = SettingsContainer.getSettings().packageSize;
-    private final int DATA_SIZE = PACKET_SIZE - 1;
+    private final FramingMode framingMode = SettingsContainer.getSettings().framing;
+    private final long highWaterMark = SettingsContainer.getSettings().outboundHighWaterBytes;
+    private final SerializationManager serializationManager;
+    private Map<SocketChannel, ChannelContext> sessions;
 
+    public SendingManager(SerializationManager serializationManager) {
+        this.serializationManager = serializationManager;
+    }
 
-    // no need for synchronization because client channel
-    public void send(byte[] data, SocketChannel socketChannel, Integer sendingToClientPort) {
-        var logger = LoggerManager.getLogger(SendingManager.class);
-
-        try {
-            var st = sendingToClientPort.toString().split("");
-            var bytes = Arrays.stream(st).map(Byte::valueOf).toArray();
-
-            var cutPointer = 1024;
-            for(int i = data.length-1; i>-1 && data[i] == 0; i--){
-                cutPointer = i;
-            }
-            if(cutPointer != 1024)
-                data = Arrays.copyOfRange(data, 0, cutPointer);
-            byte[][] ret = new byte[(int) Math.ceil(data.length / (double) (DATA_SIZE - st.length))][DATA_SIZE];
-            int start = 0;
-            for (int i = 0; i < ret.length; i++) {
-                ret[i] = Arrays.copyOfRange(data, start, start + DATA_SIZE - st.length);
-                for (Object aByte : bytes) {
-                    var b = new byte[]{(Byte) aByte};
-                    ret[i] = Bytes.concat(ret[i], b);
-                }
-                start += DATA_SIZE - st.length;
-            }
+    public void setSessions(Map<SocketChannel, ChannelContext> sessions) {
+        this.sessions = sessions;
+    }
 
-            System.out.println("Отправляется " + ret.length + " чанков...");
+    /** serializes the response with the codec the client of the request speaks and sends it, tagged with the id of the request */
+    public void send(Response response, Request request) {
+        // commands of a script build their own requests, they have no client to answer
+        if (request.interlayerChannel == null) {
+            LoggerManager.getLogger(SendingManager.class).info("request has no client, response is dropped");
+            return;
+        }
+        var context = sessions.get(request.interlayerChannel);
+        var codec = context == null ? WireCodec.JAVA : context.getCodec();
+        response.requestId = request.requestId;
+        var data = serializationManager.serialize(response, codec);
+        send(data, request.interlayerChannel, request.clientPort, request.requestId);
+    }
 
-            for (int i = 0; i < ret.length; i++) {
-                var chunk = ret[i];
-                if (i == ret.length - 1) {
-                    var lastChunk = Bytes.concat(chunk, new byte[]{1});
-                    socketChannel.write(ByteBuffer.wrap(lastChunk));
-                    System.out.println("Последний чанк размером " + chunk.length + " отправлен на сервер.");
-                } else {
-                    socketChannel.write(ByteBuffer.wrap(Bytes.concat(chunk, new byte[]{0})));
-                    System.out.println("Чанк размером " + chunk.length + " отправлен на сервер.");
-                }
-            }
+    /**
+     * puts the data into the outbound queue of the client, the selector loop writes it when the socket is writable
+     */
+    public void send(byte[] data, SocketChannel socketChannel, Integer sendingToClientPort, int requestId) {
+        var logger = LoggerManager.getLogger(SendingManager.class);
+        var context = socketChannel == null ? null : sessions.get(socketChannel);
+        if (context == null) {
+            logger.info("client " + sendingToClientPort + " has already disconnected, response is dropped");
+            return;
         }
-        catch (IOException e){
-            logger.error(e.getMessage());
-            // server has crashed, and we got isConnectionPending - true and isOpen - true as well
-            // and so we close the connection, because this connection is already closed by the server and create another one
-            if(Objects.equals(e.getMessage(), "Connection reset"))
-            {
-                try{
-                    Thread.sleep(3000);
-                    socketChannel.close();
-                }
-                catch (Exception e1){
-                }
+        List<ByteBuffer> buffers;
+        if (framingMode == FramingMode.LENGTH_PREFIXED)
+            buffers = List.of(FrameHeader.frame(data, requestId, FrameHeader.NO_FLAGS));
+        else
+            buffers = toLegacyChunks(data, sendingToClientPort);
+
+        if (!context.enqueue(buffers, highWaterMark)) {
+            logger.warn("client " + socketChannel.socket().getRemoteSocketAddress() + " has "
+                    + context.getQueuedBytes() + " bytes not read, closing the connection");
+            sessions.remove(socketChannel);
+            try {
+                socketChannel.close();
+            } catch (IOException e) {
+                logger.error(e.getMessage());
             }
         }
     }
+
+    /**
+     * sends one part of a streamed result, the next part is built on the request executor
+     * once the client has read most of its outbound queue, so a stream never holds more than about the high-water mark
+     * in memory and no thread waits for a slow client
+     *
+     * @return false if the client is gone, next is not run then
+     */
+    public boolean sendThenOnDrain(Response response, Request request, Runnable next) {
+        if (request.interlayerChannel == null)
+            return false;
+        send(response, request);
+        var context = sessions.get(request.interlayerChannel);
+        return context != null && context.whenQueuedBytesBelow(highWaterMark / 4, next);
+    }
+
+    private List<ByteBuffer> toLegacyChunks(byte[] data, Integer sendingToClientPort) {
+        var chunks = LegacyFraming.toChunks(data, sendingToClientPort, PACKET_SIZE);
+        System.out.println("Отправляется " + chunks.size() + " чанков...");
+        return chunks;
+    }
 }
@@ -0,0 +1,153 @@
+package src.network_utils;
+
+import src.loggerUtils.LoggerManager;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the requests of one connection on the shared request executor in the order they came in.
+ * Requests that only read may run together with the reads next to them, up to a limit per connection,
+ * any other request waits for everything before it and holds back everything after it, so a client always sees its own writes.
+ * At most one drain of a mailbox is on the executor, so different connections still run in parallel
+ */
+public class SessionMailbox {
+    // tasks taken per turn before the mailbox is put back behind the work already waiting on the executor,
+    // so one busy client can't hold a thread. That needs an executor with one FIFO queue, see ExecutionService
+    private static final int TASKS_PER_TURN = 16;
+
+    /**
+     * @param concurrent whether the task may run together with the other concurrent tasks next to it
+     */
+    public record Task(boolean concurrent, Runnable action) {
+    }
+
+    private record Running(SessionMailbox mailbox, Task task) {
+    }
+
+    // task the current thread runs, so that it can stay counted as running after it returns
+    private static final ThreadLocal<Running> current = new ThreadLocal<>();
+
+    private final Executor executor;
+    // concurrent tasks of the mailbox on the executor at a time, so one client can't take all of its threads
+    private final int maxConcurrent;
+    // prepared in the order they came in, null - nothing to run
+    private final Queue<Supplier<Task>> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicInteger running = new AtomicInteger();
+    // task that can't start yet, a barrier waits for all concurrent tasks, a concurrent one for a free slot.
+    // Only touched by the drain while it holds the scheduled mark
+    private Task waiting;
+
+    public SessionMailbox(Executor executor, int maxConcurrent) {
+        this.executor = executor;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+    }
+
+    public void submit(Supplier<Task> task) {
+        tasks.add(task);
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true))
+            executor.execute(this::drain);
+    }
+
+    private void drain() {
+        try {
+            for (var i = 0; i < TASKS_PER_TURN; i++) {
+                var task = waiting;
+                if (task == null) {
+                    var next = tasks.poll();
+                    if (next == null)
+                        return;
+                    task = prepare(next);
+                    if (task == null)
+                        continue;
+                }
+                // a finishing concurrent task schedules the mailbox again
+                if (!canStart(task)) {
+                    waiting = task;
+                    return;
+                }
+                waiting = null;
+                if (task.concurrent())
+                    start(task);
+                else
+                    run(task);
+            }
+        } finally {
+            // read before the mark is cleared, another drain may take the task right after it
+            var task = waiting;
+            scheduled.set(false);
+            // work that came while the mailbox was still marked as scheduled would be left behind otherwise
+            if (task == null ? !tasks.isEmpty() : canStart(task))
+                schedule();
+        }
+    }
+
+    /**
+     * keeps the task the current thread runs counted as running after it returns, until the returned action is run,
+     * e.g. while a result is still being sent. Does nothing outside of a mailbox task
+     */
+    public static Runnable holdCurrentTask() {
+        var running = current.get();
+        if (running == null)
+            return () -> {};
+        return running.mailbox().hold(running.task());
+    }
+
+    private Runnable hold(Task task) {
+        // a held barrier takes all the slots, so nothing starts next to it
+        var slots = task.concurrent() ? 1 : maxConcurrent;
+        running.addAndGet(slots);
+        var released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                running.addAndGet(-slots);
+                schedule();
+            }
+        };
+    }
+
+    private boolean canStart(Task task) {
+        return task.concurrent() ? running.get() < maxConcurrent : running.get() == 0;
+    }
+
+    private void start(Task task) {
+        running.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                run(task);
+            } finally {
+                running.decrementAndGet();
+                schedule();
+            }
+        });
+    }
+
+    private Task prepare(Supplier<Task> task) {
+        try {
+            return task.get();
+        } catch (RuntimeException e) {
+            LoggerManager.getLogger(SessionMailbox.class).error(e.getMessage());
+            return null;
+        }
+    }
+
+    private void run(Task task) {
+        current.set(new Running(this, task));
+        try {
+            task.action().run();
+        } catch (RuntimeException e) {
+            LoggerManager.getLogger(SessionMailbox.class).error(e.getMessage());
+        } finally {
+            current.remove();
+        }
+    }
+}
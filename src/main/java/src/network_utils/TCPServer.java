@@ -2,66 +2,87 @@ package src.network_utils;
 
 import src.container.SettingsContainer;
 import src.converters.SerializationManager;
+import src.converters.WireCodec;
+import src.interfaces.CommandKind;
 import src.interfaces.CommandManagerCustom;
 import src.loggerUtils.LoggerManager;
 import src.network.Request;
+import src.service.ExecutionService;
 
 import java.io.IOException;
-import java.lang.reflect.Array;
 import java.net.InetSocketAddress;
 import java.nio.channels.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 
 public class TCPServer {
     private final int port;
-    private Set<SocketChannel> sessions;
+    private Map<SocketChannel, ChannelContext> sessions;
     private ReceivingManager receivingManager;
     private CommandManagerCustom commandManager;
     private SendingManager sendingManager;
     private SerializationManager serializationManager;
     private Selector selector;
-    private ForkJoinPool forkJoinPool;
-    private ExecutorService executorService;
+    private final List<IoReactor> reactors;
+    private int nextReactor;
+    private final ExecutorService requestExecutor;
 
     public TCPServer(int port, ReceivingManager receivingManager, CommandManagerCustom commandManager) {
-        executorService = Executors.newFixedThreadPool(3);
-        forkJoinPool = new ForkJoinPool();
+        requestExecutor = ExecutionService.newRequestExecutor();
         this.port = port;
         this.receivingManager = receivingManager;
         this.commandManager = commandManager;
-        this.sendingManager = new SendingManager();
         this.serializationManager = new SerializationManager();
-        this.sessions = Collections.synchronizedSet(new HashSet<SocketChannel>());
+        this.sessions = new ConcurrentHashMap<>();
+        this.sendingManager = commandManager.getSendingManager();
+        this.sendingManager.setSessions(sessions);
+        this.reactors = new ArrayList<>();
         Runtime.getRuntime().addShutdownHook(new Thread(()-> {
             try {
                 System.out.println("closing selector...");
                 selector.close();
+                for (var reactor : reactors) {
+                    reactor.close();
+                }
             } catch (IOException e) {
                 System.err.println(e.getMessage());
             }
         }));
     }
 
-    public Set<SocketChannel> getSessions() {
+    public Map<SocketChannel, ChannelContext> getSessions() {
         return sessions;
     }
 
     public void stop() throws IOException {
-        for (var se: sessions
+        for (var se: sessions.keySet()
              ) {
             se.close();
         }
     }
 
+    /**
+     * starts io_threads selector loops for the client connections and accepts connections on the calling thread,
+     * handing them to the loops round-robin
+     */
     public void start() {
         try {
+            var ioThreads = SettingsContainer.getSettings().ioThreads;
+            // accepted connections have to go to some loop
+            if (ioThreads == null || ioThreads < 1) {
+                LoggerManager.getLogger(TCPServer.class).warn("io_threads must be at least 1, got " + ioThreads + ", using 1");
+                ioThreads = 1;
+            }
+            for (int i = 0; i < ioThreads; i++) {
+                var reactor = new IoReactor(receivingManager, this::receivedRequestHandler, sessions, requestExecutor);
+                reactors.add(reactor);
+                var thread = new Thread(reactor, "io-reactor-" + i);
+                thread.setDaemon(true);
+                thread.start();
+            }
+
             this.selector = Selector.open();
             ServerSocketChannel serverSocketChannel = ServerSocketChannel.open();
             var socketAddress = new InetSocketAddress(SettingsContainer.getSettings().host, port);
@@ -79,12 +100,9 @@ public class TCPServer {
                     keys.remove();
                     if (!key.isValid()) continue;
                     if (key.isAcceptable()) accept(key);
-                    else if (key.isReadable()) {
-                        executorService.submit(() -> receivingManager.read(key, this::receivedRequestHandler));
-                    }
                 }
             }
-        } catch (IOException e) {
+        } catch (IOException | ClosedSelectorException e) {
             LoggerManager.getLogger(TCPServer.class).error(e.getMessage());
         }
     }
@@ -92,35 +110,55 @@ public class TCPServer {
     public void receivedRequestHandler(ReadResults result){
         if(result == null)
             return;
-        Request request;
-        // object is done being transferred
-        var res = result.data;
-        int bytePointer = 1023;
-        if (res == null)
+        // decoding is done on the executor as well, so the selector loop only reads.
+        // requests of one connection go through its mailbox, reads next to each other run together, other requests in order
+        var context = sessions.get(result.socketChannel);
+        if (context == null) {
+            requestExecutor.submit(() -> {
+                var request = decode(result, null);
+                if (request != null)
+                    commandManager.executeCommand(request);
+            });
             return;
-        for (int i = res.length - 1; i > -1; i--) {
-            if (res[i] != 0) {
-                bytePointer = i;
-                break;
-            }
-        }
-        var cutres = Arrays.copyOfRange(res, 0, bytePointer+1);
-        var  obj =  serializationManager.deserialize(cutres);
-        if ((Request)obj != null) {
-            request = (Request)obj;
-            request.clientPort = result.port;
-            request.interlayerChannel = result.socketChannel;
-            forkJoinPool.submit(()-> commandManager.executeCommand(request));
         }
+        context.getMailbox().submit(() -> {
+            var request = decode(result, context);
+            if (request == null)
+                return null;
+            // without an id the client can't tell responses apart, so they have to come in the request order
+            var concurrent = request.requestId != 0
+                    && commandManager.getCommandKind(request.messageType) == CommandKind.READ;
+            return new SessionMailbox.Task(concurrent, () -> commandManager.executeCommand(request));
+        });
+    }
+
+    private Request decode(ReadResults result, ChannelContext context){
+        // object is done being transferred
+        if (result.data == null)
+            return null;
+        if (context != null)
+            context.setCodec(WireCodec.of(result.data));
+        var  obj =  serializationManager.deserialize(result.data);
+        if ((Request)obj == null)
+            return null;
+        var request = (Request)obj;
+        request.clientPort = result.port;
+        // clients that don't set the id in the request only have the one of the frame header
+        if (request.requestId == 0)
+            request.requestId = result.requestId;
+        request.interlayerChannel = result.socketChannel;
+        return request;
     }
 
     private void accept(SelectionKey key) {
         try {
             ServerSocketChannel serverSocketChannel = (ServerSocketChannel) key.channel();
             SocketChannel channel = serverSocketChannel.accept();
+            if (channel == null)
+                return;
             channel.configureBlocking(false);
-            channel.register(this.selector, SelectionKey.OP_READ);
-            this.sessions.add(channel);
+            reactors.get(nextReactor).register(channel);
+            nextReactor = (nextReactor + 1) % reactors.size();
         } catch (IOException ex) {
             throw new RuntimeException(ex);
         }
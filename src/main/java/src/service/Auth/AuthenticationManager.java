@@ -1,52 +1,46 @@
 package src.service.Auth;
 
 import org.slf4j.Logger;
+import src.Repositories.DI.UserRepo;
 import src.db.DI.DbCollectionManager;
 import src.db.SeqNames;
-import src.db.UserCollectionInDbManager;
 import src.loggerUtils.LoggerManager;
+import src.models.Role;
 import src.models.User;
 import src.service.HashingService;
 
-import java.util.List;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Optional;
 
 public class AuthenticationManager {
 
     private final Logger logger;
     private final HashingService hashingService;
-    private final List<User> users;
-    private final ReentrantLock lock = new ReentrantLock();
+    private final UserRepo userRepo;
     private final DbCollectionManager<User> userCollectionInDbManager;
 
-    public AuthenticationManager(List<User> users, DbCollectionManager<User> userCollectionInDbManager) {
+    public AuthenticationManager(UserRepo userRepo, DbCollectionManager<User> userCollectionInDbManager) {
         logger = LoggerManager.getLogger(this.getClass());
         hashingService = new HashingService();
-        this.users = users;
+        this.userRepo = userRepo;
         this.userCollectionInDbManager = userCollectionInDbManager;
     }
 
-    public boolean authenticate(String name, String passwordUnencrypted, boolean createNewUser) {
-        var encryptedPsw = hashingService.hash(passwordUnencrypted);
+    public Optional<User> authenticate(String name, String passwordUnencrypted, boolean createNewUser) {
         try {
-            lock.lock();
-            var foundUser = users.stream()
-                    .filter(u -> u.getName()
-                            .equals(name) && u
-                            .getPassword().equals(encryptedPsw)).toList();
-            if (createNewUser) {
-                if (foundUser.isEmpty()) {
-                    var id = userCollectionInDbManager.getNextId(SeqNames.userSeq);
-                    var user = new User(id, name, encryptedPsw);
+            var encryptedPsw = hashingService.hash(passwordUnencrypted);
+            var foundUser = userRepo.getUserByName(name)
+                    .filter(u -> u.getPassword().equals(encryptedPsw));
+            if (createNewUser && userRepo.getUserByName(name).isEmpty()) {
+                var id = userCollectionInDbManager.getNextId(SeqNames.userSeq);
+                var user = new User(id, encryptedPsw, name);
+                user.role = Role.MIN_USER;
+                if (userRepo.addUser(user))
                     userCollectionInDbManager.insert(user);
-                }
             }
-            return !foundUser.isEmpty();
+            return foundUser;
         } catch (Exception e) {
             logger.error(e.getMessage());
-        } finally {
-            lock.unlock();
         }
-        return true;
+        return Optional.empty();
     }
 }
@@ -0,0 +1,57 @@
+package src.service.Auth;
+
+import src.models.User;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Session tokens given out on login, so the password is hashed once per login instead of on every request.
+ * A session expires when it has not been used for the ttl
+ */
+public class SessionManager {
+
+    private static class Session {
+        private final int userId;
+        private volatile long expiresAt;
+
+        private Session(int userId, long expiresAt) {
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final long ttlMillis;
+
+    public SessionManager(long ttlSeconds) {
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public String createSession(User user) {
+        var now = System.currentTimeMillis();
+        sessions.values().removeIf(s -> s.expiresAt < now);
+        var bytes = new byte[32];
+        random.nextBytes(bytes);
+        var token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(user.getId(), now + ttlMillis));
+        return token;
+    }
+
+    /** @return id of the user the token was given to, empty if the token is unknown or expired */
+    public Optional<Integer> resolve(String token) {
+        var session = sessions.get(token);
+        if (session == null)
+            return Optional.empty();
+        var now = System.currentTimeMillis();
+        if (session.expiresAt < now) {
+            sessions.remove(token, session);
+            return Optional.empty();
+        }
+        session.expiresAt = now + ttlMillis;
+        return Optional.of(session.userId);
+    }
+}
@@ -0,0 +1,25 @@
+package src.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import src.container.SettingsContainer;
+import src.settings.ExecutionMode;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the executors for the execution mode from the settings
+ */
+public class ExecutionService {
+
+    /**
+     * executor that decodes a request, executes the command and sends the response.
+     * The pooled one has a single FIFO queue, a session mailbox that gives its thread up is put behind the work already waiting
+     */
+    public static ExecutorService newRequestExecutor() {
+        if (SettingsContainer.getSettings().executionMode == ExecutionMode.VIRTUAL_THREADS)
+            return Executors.newVirtualThreadPerTaskExecutor();
+        var threadFactory = new ThreadFactoryBuilder().setNameFormat("request-%d").setDaemon(true).build();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), threadFactory);
+    }
+}
@@ -0,0 +1,60 @@
+package src.service;
+
+import src.Repositories.DI.ProductRows;
+import src.models.Product;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Iterator;
+
+/**
+ * Position in a result that is sent page by page. For the client it is an opaque token,
+ * inside it holds the number of rows already sent and the id of the last of them
+ */
+public class PageCursor {
+    private final int offset;
+    private final Long lastId;
+
+    public PageCursor(int offset, Long lastId) {
+        this.offset = offset;
+        this.lastId = lastId;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    /** @return cursor pointing at the start of the result if the token is null or broken */
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank())
+            return new PageCursor(0, null);
+        try {
+            var parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+            return new PageCursor(Integer.parseInt(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return new PageCursor(0, null);
+        }
+    }
+
+    public String encode() {
+        var value = offset + ":" + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * returns an iterator positioned right after the last sent row. The row is looked up by its id in the index
+     * the rows are read from, so rows added or removed in front of it don't matter. If it is gone the offset is used
+     */
+    public Iterator<Product> seek(ProductRows rows) {
+        if (lastId == null)
+            return rows.iterator();
+        var after = rows.iteratorAfter(lastId);
+        if (after.isPresent())
+            return after.get();
+        var iterator = rows.iterator();
+        for (int i = 0; i < offset && iterator.hasNext(); i++) {
+            iterator.next();
+        }
+        return iterator;
+    }
+}
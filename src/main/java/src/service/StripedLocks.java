@@ -0,0 +1,30 @@
+package src.service;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * fixed set of locks picked by the hash of a key, changes of different keys mostly take different locks
+ */
+public class StripedLocks {
+    private final Lock[] stripes;
+    private final int mask;
+
+    /**
+     * @param stripes number of locks, rounded up to a power of two
+     */
+    public StripedLocks(int stripes) {
+        var size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new Lock[size];
+        for (var i = 0; i < size; i++)
+            this.stripes[i] = new ReentrantLock();
+        this.mask = size - 1;
+    }
+
+    public Lock forKey(long key) {
+        // spread the high bits, ids that differ only there would land on one stripe otherwise
+        var hash = Long.hashCode(key);
+        hash ^= hash >>> 16;
+        return stripes[hash & mask];
+    }
+}
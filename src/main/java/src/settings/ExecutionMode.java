@@ -0,0 +1,8 @@
+package src.settings;
+
+public enum ExecutionMode {
+    /** requests are executed on a fixed pool with one thread per core, responses are sent from the request thread */
+    POOLED,
+    /** every request runs on its own virtual thread from decoding to sending the response */
+    VIRTUAL_THREADS
+}
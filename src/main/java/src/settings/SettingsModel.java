@@ -1,6 +1,8 @@
 package src.settings;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import src.network.FramingMode;
+
 import java.util.List;
 
 
@@ -17,4 +19,35 @@ public class SettingsModel {
     public Integer packageSize;
     @JsonProperty("host")
     public String host;
+    @JsonProperty("framing")
+    public FramingMode framing = FramingMode.LEGACY;
+    // a client with more bytes than that waiting in its outbound queue gets disconnected
+    @JsonProperty("outbound_high_water_bytes")
+    public Long outboundHighWaterBytes = 8L * 1024 * 1024;
+    // number of selector threads serving client connections
+    @JsonProperty("io_threads")
+    public Integer ioThreads = Runtime.getRuntime().availableProcessors();
+    // rows per response when a client asks for a streamed result without a page size
+    @JsonProperty("stream_page_size")
+    public Integer streamPageSize = 100;
+    // a session token expires after that many seconds without requests
+    @JsonProperty("session_ttl_seconds")
+    public Long sessionTtlSeconds = 3600L;
+    // rows fetched per round trip when loading the collection
+    @JsonProperty("db_fetch_size")
+    public Integer dbFetchSize = 1000;
+    // how often the shared collection version is compared with the one this server has applied, 0 - on every request
+    @JsonProperty("sync_check_interval_ms")
+    public Long syncCheckIntervalMillis = 0L;
+    // ids reserved per query for products, coordinates and organizations
+    @JsonProperty("id_block_size")
+    public Integer idBlockSize = 100;
+    // locks update_by_id and remove_by_id are spread over by product id
+    @JsonProperty("product_lock_stripes")
+    public Integer productLockStripes = 64;
+    // read requests of one connection that may run at a time when the client pipelines them
+    @JsonProperty("pipelined_reads_per_session")
+    public Integer pipelinedReadsPerSession = 4;
+    @JsonProperty("execution_mode")
+    public ExecutionMode executionMode = ExecutionMode.POOLED;
 }
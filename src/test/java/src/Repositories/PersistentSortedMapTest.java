@@ -0,0 +1,125 @@
+package src.Repositories;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentSortedMapTest {
+
+    private static <V> List<V> list(Iterable<V> values) {
+        var list = new ArrayList<V>();
+        values.forEach(list::add);
+        return list;
+    }
+
+    private static void assertSameAs(TreeMap<Integer, String> expected, PersistentSortedMap<Integer, String> map) {
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected.isEmpty(), map.isEmpty());
+        assertIterableEquals(expected.values(), list(map.values()));
+        assertIterableEquals(expected.descendingMap().values(), list(map.descendingValues()));
+        if (!expected.isEmpty()) {
+            assertEquals(expected.firstKey(), map.firstKey());
+            assertEquals(expected.lastKey(), map.lastKey());
+        }
+    }
+
+    @Test
+    void matchesTreeMapAfterRandomChanges() {
+        var random = new Random(42);
+        var expected = new TreeMap<Integer, String>();
+        var map = PersistentSortedMap.<Integer, String>empty();
+        for (var i = 0; i < 5000; i++) {
+            var key = random.nextInt(300);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, "v" + i);
+                map = map.put(key, "v" + i);
+            }
+            if (i % 100 == 0)
+                assertSameAs(expected, map);
+        }
+        assertSameAs(expected, map);
+        for (var key = -1; key <= 300; key++)
+            assertEquals(expected.get(key), map.get(key));
+    }
+
+    @Test
+    void boundedIterationMatchesTreeMap() {
+        var random = new Random(7);
+        var expected = new TreeMap<Integer, String>();
+        var map = PersistentSortedMap.<Integer, String>empty();
+        for (var i = 0; i < 200; i++) {
+            // even keys only, so bounds fall both on keys and between them
+            var key = random.nextInt(150) * 2;
+            expected.put(key, "v" + key);
+            map = map.put(key, "v" + key);
+        }
+        for (var i = 0; i < 2000; i++) {
+            var low = random.nextInt(320) - 10;
+            var high = low + random.nextInt(60);
+            var lowInclusive = random.nextBoolean();
+            var highInclusive = random.nextBoolean();
+            assertIterableEquals(expected.subMap(low, lowInclusive, high, highInclusive).values(),
+                    list(map.values(low, lowInclusive, high, highInclusive)));
+            assertIterableEquals(expected.subMap(low, lowInclusive, high, highInclusive).descendingMap().values(),
+                    list(map.descendingValues(high, highInclusive, low, lowInclusive)));
+            assertIterableEquals(expected.tailMap(low, lowInclusive).values(),
+                    list(map.values(low, lowInclusive, null, false)));
+            assertIterableEquals(expected.headMap(high, highInclusive).values(),
+                    list(map.values(null, false, high, highInclusive)));
+            assertIterableEquals(expected.headMap(high, highInclusive).descendingMap().values(),
+                    list(map.descendingValues(high, highInclusive, null, false)));
+            assertIterableEquals(expected.tailMap(low, lowInclusive).descendingMap().values(),
+                    list(map.descendingValues(null, false, low, lowInclusive)));
+        }
+    }
+
+    @Test
+    void olderVersionsDontChange() {
+        var versions = new ArrayList<PersistentSortedMap<Integer, String>>();
+        var oracles = new ArrayList<TreeMap<Integer, String>>();
+        var random = new Random(3);
+        var expected = new TreeMap<Integer, String>();
+        var map = PersistentSortedMap.<Integer, String>empty();
+        for (var i = 0; i < 500; i++) {
+            var key = random.nextInt(50);
+            if (random.nextBoolean()) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, "v" + i);
+                map = map.put(key, "v" + i);
+            }
+            versions.add(map);
+            oracles.add(new TreeMap<>(expected));
+        }
+        for (var i = 0; i < versions.size(); i++)
+            assertSameAs(oracles.get(i), versions.get(i));
+    }
+
+    @Test
+    void removingMissingKeyKeepsTheMap() {
+        var map = PersistentSortedMap.<Integer, String>empty().put(1, "a");
+        assertSame(map, map.remove(2));
+    }
+
+    @Test
+    void emptyMap() {
+        var map = PersistentSortedMap.<Integer, String>empty();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+        assertFalse(map.values().iterator().hasNext());
+        assertFalse(map.descendingValues(5, true, 1, true).iterator().hasNext());
+        assertThrows(NoSuchElementException.class, map::firstKey);
+        assertThrows(NoSuchElementException.class, map::lastKey);
+        assertThrows(NoSuchElementException.class, () -> map.values().iterator().next());
+    }
+}
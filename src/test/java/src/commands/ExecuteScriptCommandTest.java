@@ -0,0 +1,178 @@
+package src.commands;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import src.Repositories.DI.ProductRepo;
+import src.Repositories.DI.UserRepo;
+import src.container.SettingsContainer;
+import src.converters.SerializationManager;
+import src.db.DI.DbCollectionManager;
+import src.db.IdAllocator;
+import src.interfaces.CommandKind;
+import src.interfaces.CommandManagerCustom;
+import src.models.Product;
+import src.models.Role;
+import src.models.User;
+import src.network.MessageType;
+import src.network.Request;
+import src.network_utils.SendingManager;
+import src.service.InputService;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecuteScriptCommandTest {
+
+    /** runs the lines of a script with the history command and keeps what it ran */
+    private static class ScriptCommandManager implements CommandManagerCustom {
+        private final List<String> history = new ArrayList<>();
+        private final List<User> users = new ArrayList<>();
+        private final InputService inputService = new InputService();
+        private final SendingManager sendingManager = new SendingManager(new SerializationManager());
+        private final HistoryCommand historyCommand = new HistoryCommand(this);
+        private HashMap<String, List<String>> scripts;
+
+        ScriptCommandManager() {
+            sendingManager.setSessions(new ConcurrentHashMap<>());
+        }
+
+        @Override
+        public void executeCommand(String userInput, User user) {
+            var units = userInput.split(" ");
+            history.add(units[0]);
+            users.add(user);
+            historyCommand.execute(Arrays.copyOfRange(units, 1, units.length), user);
+        }
+
+        @Override
+        public void executeCommand(Request userInput) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<String> getCommandHistory() {
+            return history;
+        }
+
+        @Override
+        public SendingManager getSendingManager() {
+            return sendingManager;
+        }
+
+        @Override
+        public InputService getInputService() {
+            return inputService;
+        }
+
+        @Override
+        public void setExecuteScriptHandyMap(HashMap<String, List<String>> executeScriptHandyMap) {
+            scripts = executeScriptHandyMap;
+        }
+
+        @Override
+        public HashMap<String, List<String>> getExecuteScriptHandyMap() {
+            return scripts;
+        }
+
+        @Override
+        public ProductRepo getProductsRepo() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<String> getCommandsInfo(Role role) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Scanner getScanner() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SerializationManager getSerializationManager() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setCurrentScriptBeingExecuted(String name) {
+        }
+
+        @Override
+        public String getCurrentScriptBeingExecuted() {
+            return null;
+        }
+
+        @Override
+        public LocalDateTime getInitializationTime() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public UserRepo getUsersRepo() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public DbCollectionManager<Product> getDbProductManager() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public DbCollectionManager<User> getDbUserManager() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public IdAllocator getIdAllocator(String sequenceName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CommandKind getCommandKind(MessageType messageType) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @BeforeEach
+    void loadSettings() throws IOException {
+        SettingsContainer.loadSettings("settings.json");
+    }
+
+    private static Request scriptRequest(List<String> lines) {
+        var scripts = new LinkedHashMap<String, List<String>>();
+        scripts.put("script.txt", lines);
+        var request = new Request(MessageType.EXECUTE_SCRIPT);
+        request.requiredArguments.add(scripts);
+        request.requiredArguments.add(1);
+        return request;
+    }
+
+    @Test
+    void runsEveryCommandOfTheScriptAsItsUser() {
+        var commandManager = new ScriptCommandManager();
+        var command = new ExecuteScriptCommand(commandManager);
+        var user = new User(7, "hash", "user");
+        user.role = Role.MIN_USER;
+        var request = scriptRequest(List.of("history", "history"));
+        // clients logged in with a session token send neither name nor password
+        request.authenticatedUser = user;
+
+        assertTrue(command.execute(request));
+        assertIterableEquals(List.of("history", "history"), commandManager.getCommandHistory());
+        assertIterableEquals(List.of(user, user), commandManager.users);
+    }
+
+    @Test
+    void runsNothingWithoutUser() {
+        var commandManager = new ScriptCommandManager();
+        var command = new ExecuteScriptCommand(commandManager);
+
+        assertFalse(command.execute(scriptRequest(List.of("history"))));
+        assertTrue(commandManager.getCommandHistory().isEmpty());
+    }
+}
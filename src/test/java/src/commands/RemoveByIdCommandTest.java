@@ -0,0 +1,27 @@
+package src.commands;
+
+import org.junit.jupiter.api.Test;
+import src.network.MessageType;
+import src.network.Request;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RemoveByIdCommandTest {
+
+    @Test
+    void lockKeyIsTheId() {
+        var request = new Request(MessageType.REMOVE_BY_ID);
+        request.requiredArguments.add(42L);
+        assertEquals(42L, new RemoveByIdCommand(null).getLockKey(request));
+    }
+
+    @Test
+    void lockKeyOfBadArgumentsFallsBack() {
+        var command = new RemoveByIdCommand(null);
+        var missing = new Request(MessageType.REMOVE_BY_ID);
+        var mistyped = new Request(MessageType.REMOVE_BY_ID);
+        mistyped.requiredArguments.add("42");
+        assertEquals(0L, command.getLockKey(missing));
+        assertEquals(0L, command.getLockKey(mistyped));
+    }
+}
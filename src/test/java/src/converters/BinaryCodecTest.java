@@ -0,0 +1,156 @@
+package src.converters;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.jupiter.api.Test;
+import src.models.*;
+import src.network.MessageType;
+import src.network.Request;
+import src.network.Response;
+import src.utils.Argument;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryCodecTest {
+    private final BinaryCodec codec = new BinaryCodec();
+
+    private static Product product(long id) {
+        var user = new User(7, "hash", "alice");
+        user.role = Role.MIDDLE_USER;
+        return new Product(id, new Coordinates(3, 1.5, 2.5f), LocalDateTime.of(2024, 1, 2, 3, 4, 5, 6000),
+                9.75f, 12.5, UnitOfMeasure.LITERS, "milk",
+                new Organization(11L, "farm", 1000, OrganizationType.TRUST), user);
+    }
+
+    @Test
+    void requestRoundTrip() throws IOException {
+        var request = new Request(MessageType.UPDATE_BY_ID);
+        request.requiredArguments.add(product(5));
+        request.requiredArguments.add(42L);
+        request.userName = "alice";
+        request.userPassword = "secret";
+        request.createNewUser = true;
+        request.structuredResult = true;
+        request.pageSize = 20;
+        request.cursor = "cursor";
+        request.streamResult = true;
+        request.sessionToken = "token";
+        request.requestId = 77;
+
+        var decoded = (Request) codec.decode(codec.encode(request));
+
+        assertEquals(MessageType.UPDATE_BY_ID, decoded.messageType);
+        assertEquals("alice", decoded.userName);
+        assertEquals("secret", decoded.userPassword);
+        assertTrue(decoded.createNewUser);
+        assertTrue(decoded.structuredResult);
+        assertEquals(20, decoded.pageSize);
+        assertEquals("cursor", decoded.cursor);
+        assertTrue(decoded.streamResult);
+        assertEquals("token", decoded.sessionToken);
+        assertEquals(77, decoded.requestId);
+        assertEquals(42L, decoded.requiredArguments.get(1));
+        assertProductEquals(product(5), (Product) decoded.requiredArguments.get(0));
+    }
+
+    @Test
+    void responseRoundTrip() throws IOException {
+        var response = new Response("done");
+        response.messageType = MessageType.SHOW;
+        response.products = List.of(product(1), product(2));
+        response.users = List.of(new User(8, "hash", "bob"));
+        var requirements = new LinkedHashMap<String, List<org.apache.commons.lang3.tuple.Pair<Argument, Integer>>>();
+        requirements.put("add", List.of(ImmutablePair.of(Argument.PRODUCT, 1)));
+        response.commandRequirements = requirements;
+        response.nextCursor = "next";
+        response.hasMore = true;
+        response.sessionToken = "token";
+        response.requestId = 5;
+
+        var decoded = (Response) codec.decode(codec.encode(response));
+
+        assertEquals("done", decoded.serverResponseToCommand);
+        assertEquals(MessageType.SHOW, decoded.messageType);
+        assertEquals(2, decoded.products.size());
+        assertProductEquals(product(2), decoded.products.get(1));
+        assertEquals("bob", decoded.users.get(0).getName());
+        // the password hash is not sent
+        assertNull(decoded.users.get(0).getPassword());
+        assertEquals(Argument.PRODUCT, decoded.commandRequirements.get("add").get(0).getLeft());
+        assertEquals("next", decoded.nextCursor);
+        assertTrue(decoded.hasMore);
+        assertEquals("token", decoded.sessionToken);
+        assertEquals(5, decoded.requestId);
+    }
+
+    @Test
+    void messageDoesNotEndWithZero() throws IOException {
+        // the last field is a 0 request id, the legacy framing cuts zeros at the end of a message
+        var data = codec.encode(new Request(MessageType.SHOW));
+        assertTrue(data[data.length - 1] != 0);
+    }
+
+    @Test
+    void readsVersionOneMessages() throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+        out.writeByte(BinaryCodec.MAGIC);
+        out.writeByte(1);
+        out.writeByte(1); // request
+        out.writeByte(1); // message type field
+        out.writeByte(10); // message type tag
+        out.writeByte(MessageType.SHOW.ordinal());
+        out.writeByte(0); // end of fields
+
+        var decoded = (Request) codec.decode(bytes.toByteArray());
+
+        assertEquals(MessageType.SHOW, decoded.messageType);
+    }
+
+    @Test
+    void rejectsUnknownEnumName() throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+        out.writeByte(BinaryCodec.MAGIC);
+        out.writeByte(BinaryCodec.VERSION);
+        out.writeByte(1); // request
+        out.writeByte(1); // message type field
+        out.writeByte(10); // message type tag
+        var name = "NO_SUCH_TYPE".getBytes();
+        out.writeInt(name.length);
+        out.write(name);
+        out.writeByte(BinaryCodec.END_OF_FIELDS);
+
+        assertThrows(StreamCorruptedException.class, () -> codec.decode(bytes.toByteArray()));
+    }
+
+    @Test
+    void rejectsNewerVersion() {
+        var data = new byte[]{BinaryCodec.MAGIC, BinaryCodec.VERSION + 1, 1, BinaryCodec.END_OF_FIELDS};
+        assertThrows(StreamCorruptedException.class, () -> codec.decode(data));
+    }
+
+    static void assertProductEquals(Product expected, Product actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getCoordinates().getId(), actual.getCoordinates().getId());
+        assertEquals(expected.getCoordinates().getX(), actual.getCoordinates().getX());
+        assertEquals(expected.getCoordinates().getY(), actual.getCoordinates().getY());
+        assertEquals(expected.getCreationDate(), actual.getCreationDate());
+        assertEquals(expected.getPrice(), actual.getPrice());
+        assertEquals(expected.getManufactureCost(), actual.getManufactureCost());
+        assertEquals(expected.getUnitOfMeasure(), actual.getUnitOfMeasure());
+        assertEquals(expected.getManufacturer().getId(), actual.getManufacturer().getId());
+        assertEquals(expected.getManufacturer().getName(), actual.getManufacturer().getName());
+        assertEquals(expected.getManufacturer().getOrganizationType(), actual.getManufacturer().getOrganizationType());
+        assertEquals(expected.getUser().getId(), actual.getUser().getId());
+        assertEquals(expected.getUser().role, actual.getUser().role);
+    }
+}
@@ -0,0 +1,78 @@
+package src.network_utils;
+
+import org.junit.jupiter.api.Test;
+import src.converters.BinaryCodec;
+import src.models.Coordinates;
+import src.models.Product;
+import src.models.UnitOfMeasure;
+import src.network.MessageType;
+import src.network.Request;
+import src.network.Response;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LegacyFramingTest {
+    private static final int PORT = 54321;
+    private final BinaryCodec codec = new BinaryCodec();
+
+    /** what the receiving side gets after reading all chunks of the message */
+    private byte[] transfer(byte[] data) {
+        var chunks = LegacyFraming.toChunks(data, PORT, LegacyFraming.CHUNK_SIZE);
+        var message = new ByteArrayOutputStream();
+        for (var i = 0; i < chunks.size(); i++) {
+            var chunk = chunks.get(i);
+            var read = ByteBuffer.allocate(LegacyFraming.CHUNK_SIZE);
+            var numRead = chunk.remaining();
+            read.put(chunk);
+            var port = LegacyFraming.appendChunk(read.array(), numRead, message);
+            if (i < chunks.size() - 1) {
+                assertEquals(-1, port);
+            } else {
+                assertEquals(PORT, port);
+            }
+        }
+        return LegacyFraming.cutTrailingZeros(message.toByteArray());
+    }
+
+    @Test
+    void binaryRequestSurvivesLegacyFraming() throws IOException {
+        var request = new Request(MessageType.REMOVE_BY_ID);
+        request.requiredArguments.add(0L);
+        request.pageSize = 0;
+
+        var decoded = (Request) codec.decode(transfer(codec.encode(request)));
+
+        assertEquals(MessageType.REMOVE_BY_ID, decoded.messageType);
+        assertEquals(0L, decoded.requiredArguments.get(0));
+        assertEquals(0, decoded.requestId);
+    }
+
+    @Test
+    void binaryResponseOfManyChunksSurvivesLegacyFraming() throws IOException {
+        var response = new Response("rows");
+        response.products = new ArrayList<>();
+        for (long id = 1; id <= 200; id++) {
+            response.products.add(new Product(id, "product " + id, new Coordinates((int) id, 1.0, 0f),
+                    1f, 0.0, UnitOfMeasure.KILOGRAMS, null));
+        }
+
+        var data = codec.encode(response);
+        assertTrue(data.length > LegacyFraming.CHUNK_SIZE);
+        var decoded = (Response) codec.decode(transfer(data));
+
+        assertEquals(200, decoded.products.size());
+        assertEquals("product 200", decoded.products.get(199).getName());
+        assertEquals(0.0, (double) decoded.products.get(199).getManufactureCost());
+    }
+
+    @Test
+    void cutsOnlyTrailingZeros() {
+        assertArrayEquals(new byte[]{0, 1, 0, 2}, LegacyFraming.cutTrailingZeros(new byte[]{0, 1, 0, 2, 0, 0}));
+        assertArrayEquals(new byte[0], LegacyFraming.cutTrailingZeros(new byte[]{0, 0}));
+    }
+}
@@ -0,0 +1,151 @@
+package src.network_utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionMailboxTest {
+
+    private record Event(int task, boolean start) {
+    }
+
+    @Test
+    void barriersRunAloneAndInOrder() throws InterruptedException {
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var mailbox = new SessionMailbox(executor, 3);
+            var events = Collections.synchronizedList(new ArrayList<Event>());
+            var running = new AtomicInteger();
+            var maxRunning = new AtomicInteger();
+            var count = 500;
+            var done = new CountDownLatch(count);
+            for (var i = 0; i < count; i++) {
+                var task = i;
+                var concurrent = i % 7 != 0;
+                mailbox.submit(() -> new SessionMailbox.Task(concurrent, () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    events.add(new Event(task, true));
+                    sleepQuietly();
+                    events.add(new Event(task, false));
+                    running.decrementAndGet();
+                    done.countDown();
+                }));
+            }
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+
+            assertTrue(maxRunning.get() <= 3, "more concurrent tasks than allowed: " + maxRunning.get());
+            assertBarriersRunAlone(List.copyOf(events), 7);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void readsRunTogether() throws InterruptedException {
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var mailbox = new SessionMailbox(executor, 2);
+            var secondStarted = new CountDownLatch(1);
+            var firstSawSecond = new CountDownLatch(1);
+            mailbox.submit(() -> new SessionMailbox.Task(true, () -> {
+                try {
+                    if (secondStarted.await(10, TimeUnit.SECONDS))
+                        firstSawSecond.countDown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            mailbox.submit(() -> new SessionMailbox.Task(true, secondStarted::countDown));
+            assertTrue(firstSawSecond.await(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failingTasksDoNotStopTheMailbox() throws InterruptedException {
+        var executor = Executors.newFixedThreadPool(2);
+        try {
+            var mailbox = new SessionMailbox(executor, 2);
+            var done = new CountDownLatch(1);
+            mailbox.submit(() -> {
+                throw new IllegalStateException("broken request");
+            });
+            mailbox.submit(() -> new SessionMailbox.Task(false, () -> {
+                throw new IllegalStateException("broken command");
+            }));
+            mailbox.submit(() -> null);
+            mailbox.submit(() -> new SessionMailbox.Task(false, done::countDown));
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void heldTaskHoldsBackTheTasksAfterIt() throws InterruptedException {
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var mailbox = new SessionMailbox(executor, 2);
+            var release = new AtomicReference<Runnable>();
+            var held = new CountDownLatch(1);
+            var after = new CountDownLatch(1);
+            mailbox.submit(() -> new SessionMailbox.Task(false, () -> {
+                release.set(SessionMailbox.holdCurrentTask());
+                held.countDown();
+            }));
+            mailbox.submit(() -> new SessionMailbox.Task(true, after::countDown));
+            assertTrue(held.await(10, TimeUnit.SECONDS));
+            assertFalse(after.await(200, TimeUnit.MILLISECONDS));
+
+            release.get().run();
+            assertTrue(after.await(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void holdOutsideOfTaskDoesNothing() {
+        SessionMailbox.holdCurrentTask().run();
+    }
+
+    /**
+     * every barrier (task % barrierEvery == 0) starts after all tasks before it have finished
+     * and finishes before any task after it starts
+     */
+    private static void assertBarriersRunAlone(List<Event> events, int barrierEvery) {
+        var finished = new HashSet<Integer>();
+        for (var i = 0; i < events.size(); i++) {
+            var event = events.get(i);
+            if (!event.start()) {
+                finished.add(event.task());
+                continue;
+            }
+            if (event.task() % barrierEvery != 0)
+                continue;
+            for (var before = 0; before < event.task(); before++)
+                assertTrue(finished.contains(before), "task " + before + " still runs when barrier " + event.task() + " starts");
+            var next = events.get(i + 1);
+            assertEquals(new Event(event.task(), false), next, "barrier " + event.task() + " overlaps another task");
+        }
+    }
+
+    private static void sleepQuietly() {
+        try {
+            Thread.sleep(0, 200_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}